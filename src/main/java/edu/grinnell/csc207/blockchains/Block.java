@@ -1,9 +1,5 @@
 package edu.grinnell.csc207.blockchains;
 
-import java.nio.ByteBuffer;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
-
 /**
  * Blocks to be stored in blockchains.
  * This is written for csc207 fall 2024
@@ -13,6 +9,16 @@ import java.security.NoSuchAlgorithmException;
  * @author Samuel A. Rebelsky
  */
 public class Block {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The miner used by the mining constructor, which searches on the calling thread.
+   * Nobody can ask it for statistics, so it does not keep any.
+   */
+  private static final Miner SEARCHER = new Miner(1, false, false);
+
   // +--------+------------------------------------------------------
   // | Fields |
   // +--------+
@@ -28,20 +34,48 @@ public class Block {
   private final Transaction transaction;
 
   /**
-   * Hash of the previous block.
+   * Hash of the previous block. A chain may swap it for an equal hash (the previous
+   * block's own), so the two share their storage, or drop it if it keeps the hashes in
+   * an arena.
    */
-  private final Hash prevHash;
+  private Hash prevHash;
 
   /**
    * Nonce value for this block.
    */
-  private long nonce;
+  private final long nonce;
 
   /**
-   * Hash of this block.
+   * Hash of this block, or null if it is in an arena.
    */
   private Hash hash;
 
+  /**
+   * The engine that computed the hash.
+   */
+  private final DigestEngine engine;
+
+  /**
+   * The block's header. Swapped along with the previous hash, and dropped (to be built
+   * again when asked for) if the hashes are in an arena.
+   */
+  private BlockHeader header;
+
+  /**
+   * How the block was mined together with blocks for other chains, or null.
+   */
+  private final MergeProof proof;
+
+  /**
+   * Where a chain keeps our hash and the previous one, or null if we keep them.
+   */
+  private HashArena arena;
+
+  /**
+   * The index of our hash in the arena. The previous hash comes right before it.
+   */
+  private int slot;
+
   // +--------------+------------------------------------------------
   // | Constructors |
   // +--------------+
@@ -67,13 +101,14 @@ public class Block {
     this.number = num;
     this.transaction = transactions;
     this.prevHash = prevHashes;
-    this.nonce = 0;
+    this.engine = DigestEngine.SHA_256;
 
     // Mining: Find a nonce that produces a valid hash
-    do {
-      this.nonce++;
-      this.hash = computeHash();
-    } while (!check.isValid(this.hash));
+    BlockTemplate template = new BlockTemplate(num, transactions, prevHashes);
+    this.nonce = SEARCHER.search(template, check);
+    this.proof = null;
+    this.header = template.header(this.nonce);
+    this.hash = template.hash(this.nonce);
   } //block
 
   /**
@@ -86,51 +121,57 @@ public class Block {
    * @throws IllegalArgumentException if the transaction is null.
    */
   public Block(int num, Transaction transactions, Hash prevHashes, long nonces) {
+    this(num, transactions, prevHashes, nonces, DigestEngine.SHA_256);
+  } //Block
+
+  /**
+   * Create a new block, computing the hash for the block with a particular engine.
+   *
+   * @param num The number of the block.
+   * @param transactions The transaction for the block.
+   * @param prevHashes The hash of the previous block.
+   * @param nonces The nonce of the block.
+   * @param engines The engine that computes the hash.
+   * @throws IllegalArgumentException if the transaction or engine is null.
+   */
+  public Block(int num, Transaction transactions, Hash prevHashes, long nonces,
+      DigestEngine engines) {
+    this(num, transactions, prevHashes, nonces, engines, null);
+  } //Block
+
+  /**
+   * Create a new block that was mined together with blocks for other chains, computing
+   * its hash from the merged header.
+   *
+   * @param num The number of the block.
+   * @param transactions The transaction for the block.
+   * @param prevHashes The hash of the previous block.
+   * @param nonces The nonce of the merged header.
+   * @param engines The engine that computes the hash.
+   * @param proofs How the block was mined with the others, or null if it was mined alone.
+   * @throws IllegalArgumentException if the transaction or engine is null, or if the
+   *   proof does not commit to this block.
+   */
+  public Block(int num, Transaction transactions, Hash prevHashes, long nonces,
+      DigestEngine engines, MergeProof proofs) {
     if (transactions == null) {
       throw new IllegalArgumentException("Transaction cannot be null.");
     } //if
+    if (engines == null) {
+      throw new IllegalArgumentException("DigestEngine cannot be null.");
+    } //if
 
     this.number = num;
     this.transaction = transactions;
     this.prevHash = prevHashes;
     this.nonce = nonces;
-    this.hash = computeHash();
-  } //Block
+    this.engine = engines;
+    this.proof = proofs;
 
-  // +---------+-----------------------------------------------------
-  // | Helpers |
-  // +---------+
-
-  /**
-   * Compute the hash of the block given all the other info already stored in the block.
-   *
-   * @return the computed hash.
-   */
-  private Hash computeHash() {
-    try {
-      MessageDigest md = MessageDigest.getInstance("SHA-256");
-
-      // Add block number
-      md.update(ByteBuffer.allocate(Integer.BYTES).putInt(this.number).array());
-
-      // Add transaction data
-      md.update(this.transaction.getSource().getBytes());
-      md.update(this.transaction.getTarget().getBytes());
-      md.update(ByteBuffer.allocate(Integer.BYTES).putInt(this.transaction.getAmount()).array());
-
-      // Add previous hash
-      if (this.prevHash != null) {
-        md.update(this.prevHash.getBytes());
-      } //if
-
-      // Add nonce
-      md.update(ByteBuffer.allocate(Long.BYTES).putLong(this.nonce).array());
-
-      return new Hash(md.digest());
-    } catch (NoSuchAlgorithmException e) {
-      throw new RuntimeException("SHA-256 algorithm not found.", e);
-    } //try/catch
-  } //computHash()
+    BlockTemplate template = new BlockTemplate(num, transactions, prevHashes, engines, proofs);
+    this.header = template.header(nonces);
+    this.hash = template.hash(nonces);
+  } //Block
 
   // +---------+-----------------------------------------------------
   // | Methods |
@@ -169,6 +210,9 @@ public class Block {
    * @return the hash of the previous block.
    */
   public Hash getPrevHash() {
+    if ((this.arena != null) && (this.slot > 0)) {
+      return this.arena.get(this.slot - 1);
+    } //if
     return this.prevHash;
   } //getPrevHash()
 
@@ -178,9 +222,114 @@ public class Block {
    * @return the hash of the current block.
    */
   public Hash getHash() {
+    if (this.arena != null) {
+      return this.arena.get(this.slot);
+    } //if
     return this.hash;
   } //getHash()
 
+  /**
+   * Get the part of this block that was hashed, which can be checked without the
+   * transaction. For a merged block, what was hashed is the merged header, which
+   * commits to this header.
+   *
+   * @return the header of this block.
+   */
+  public BlockHeader getHeader() {
+    BlockHeader result = this.header;
+    if (result == null) {
+      result = new BlockHeader(this.number, BlockHeader.prevField(getPrevHash(), this.engine),
+          BlockHeader.transactionDigest(this.transaction, this.engine), this.nonce,
+          this.engine);
+    } //if
+    return result;
+  } //getHeader()
+
+  /**
+   * Use an equal hash as the previous hash, so that this block does not keep a copy of
+   * the previous block's hash. Nothing about the block changes but where the bytes are
+   * stored. A block whose hashes are in an arena has nothing to share, and a block that
+   * has no header (because it was in an arena once) builds it from the shared hash
+   * when asked.
+   *
+   * @param prev The hash of the previous block.
+   * @throws IllegalArgumentException if the hash is not equal to our previous hash.
+   */
+  void sharePrevHash(Hash prev) {
+    if ((this.arena != null) || (prev == this.prevHash)) {
+      return;
+    } // if
+    if (!prev.equals(this.prevHash)) {
+      throw new IllegalArgumentException("Previous hash mismatch.");
+    } // if
+    if ((this.header != null) && this.header.getPrevHash().equals(prev)) {
+      this.header = new BlockHeader(this.number, prev, this.header.getTransactionDigest(),
+          this.nonce, this.engine);
+    } // if
+    this.prevHash = prev;
+  } // sharePrevHash(Hash)
+
+  /**
+   * Determine whether our hashes are in a chain's arena.
+   *
+   * @return true if some off-heap chain holds this block.
+   */
+  boolean isInArena() {
+    return this.arena != null;
+  } // isInArena()
+
+  /**
+   * Move our hash into a chain's arena, after the previous block's, and drop the
+   * objects the arena makes unnecessary: the hashes and the header.
+   *
+   * @param arenas The arena.
+   * @throws IllegalStateException if our hashes are already in an arena.
+   */
+  void moveTo(HashArena arenas) {
+    if (this.arena != null) {
+      throw new IllegalStateException("Block " + this.number + " is already in an arena.");
+    } // if
+    this.slot = arenas.add(this.hash);
+    this.arena = arenas;
+    this.hash = null;
+    this.header = null;
+    if (this.slot > 0) {
+      this.prevHash = null;
+    } // if
+  } // moveTo(HashArena)
+
+  /**
+   * Take our hashes back out of the arena, before the chain forgets them.
+   */
+  void moveOut() {
+    if (this.arena == null) {
+      return;
+    } // if
+    this.hash = this.arena.get(this.slot);
+    if (this.slot > 0) {
+      this.prevHash = this.arena.get(this.slot - 1);
+    } // if
+    this.arena = null;
+  } // moveOut()
+
+  /**
+   * Get how this block was mined together with blocks for other chains.
+   *
+   * @return the merge proof, or null if the block was mined on its own.
+   */
+  public MergeProof getMergeProof() {
+    return this.proof;
+  } //getMergeProof()
+
+  /**
+   * Get the engine that computed the hash of this block.
+   *
+   * @return the digest engine.
+   */
+  public DigestEngine getEngine() {
+    return this.engine;
+  } //getEngine()
+
   /**
    * Get a string representation of the block.
    *
@@ -189,6 +338,6 @@ public class Block {
   public String toString() {
     return String.format("Block %d (Transaction: %s, Nonce: %d, prevHash: %s, hash: %s)",
         this.number, this.transaction, this.nonce,
-        this.prevHash == null ? "null" : this.prevHash.toString(), this.hash.toString());
+        getPrevHash() == null ? "null" : getPrevHash().toString(), getHash().toString());
   } //toString()
 } // class Block
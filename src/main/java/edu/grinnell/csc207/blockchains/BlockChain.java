@@ -1,9 +1,15 @@
 package edu.grinnell.csc207.blockchains;
 
+import java.time.Duration;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.HashSet;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A full blockchain.
@@ -18,9 +24,40 @@ public class BlockChain implements Iterable<Transaction> {
   // +--------+
 
   /**
-   * Validator for hash validation.
+   * Validator for hash validation of new blocks. Changes when we retarget.
    */
-  private final HashValidator validator;
+  private HashValidator validator;
+
+  /**
+   * Policy for adjusting the difficulty, or null to keep it fixed.
+   */
+  private RetargetPolicy retargetPolicy;
+
+  /**
+   * When the current retargeting window started, from System.nanoTime().
+   */
+  private long windowStart;
+
+  /**
+   * The number of blocks appended in the current retargeting window.
+   */
+  private int windowBlocks;
+
+  /**
+   * Miner used to find nonces for new blocks.
+   */
+  private final Miner miner;
+
+  /**
+   * Engine that computes the hashes of our blocks.
+   */
+  private final DigestEngine engine;
+
+  /**
+   * Where we keep the hashes of our blocks outside the heap, or null to let the blocks
+   * keep them.
+   */
+  private final HashArena arena;
 
   /**
    * Head of the chain.
@@ -49,9 +86,15 @@ public class BlockChain implements Iterable<Transaction> {
      */
     Node next;
 
-    Node(Block datas, Node nexts) {
+    /**
+     * The validator the block had to satisfy when we added it.
+     */
+    HashValidator validator;
+
+    Node(Block datas, Node nexts, HashValidator validators) {
       this.data = datas;
       this.next = nexts;
+      this.validator = validators;
     } // Node
   } // Node
 
@@ -65,25 +108,155 @@ public class BlockChain implements Iterable<Transaction> {
    * @param check The validator used to check elements.
    */
   public BlockChain(HashValidator check) {
+    this(check, new Miner(1));
+  } // BlockChain(HashValidator)
+
+  /**
+   * Create a new blockchain using a validator to check elements and a miner to find
+   * nonces for new blocks.
+   *
+   * @param check The validator used to check elements.
+   * @param miners The miner used to find nonces.
+   */
+  public BlockChain(HashValidator check, Miner miners) {
+    this(check, miners, DigestEngine.SHA_256);
+  } // BlockChain(HashValidator, Miner)
+
+  /**
+   * Create a new blockchain using a validator to check elements, a miner to find nonces
+   * for new blocks, and an engine to hash blocks. Every block in the chain must be
+   * hashed with the same algorithm as the engine.
+   *
+   * @param check The validator used to check elements.
+   * @param miners The miner used to find nonces.
+   * @param engines The engine that computes the hashes of blocks.
+   */
+  public BlockChain(HashValidator check, Miner miners, DigestEngine engines) {
+    this(check, miners, engines, false);
+  } // BlockChain(HashValidator, Miner, DigestEngine)
+
+  /**
+   * Create a new blockchain that may keep the hashes of its blocks outside the heap.
+   * Off the heap, the hashes of all the blocks sit one after another in direct buffers,
+   * and the blocks make Hash objects from them only when asked. That leaves far fewer
+   * objects on the heap for a long chain, at the price of a new Hash for every call to
+   * getHash() or getPrevHash() on a block in the chain.
+   *
+   * @param check The validator used to check elements.
+   * @param miners The miner used to find nonces.
+   * @param engines The engine that computes the hashes of blocks.
+   * @param offHeap Whether to keep the hashes outside the heap.
+   */
+  public BlockChain(HashValidator check, Miner miners, DigestEngine engines,
+      boolean offHeap) {
     if (check == null) {
       throw new IllegalArgumentException("HashValidator cannot be null.");
     } // if
+    if (miners == null) {
+      throw new IllegalArgumentException("Miner cannot be null.");
+    } // if
+    if (engines == null) {
+      throw new IllegalArgumentException("DigestEngine cannot be null.");
+    } // if
 
     this.validator = check;
+    this.miner = miners;
+    this.engine = engines;
+    this.arena = offHeap ? new HashArena(engines.getDigestLength()) : null;
 
     // Create the genesis block
     Transaction initialTransaction = new Transaction("", "", 0);
-    Block genesisBlock = new Block(0, initialTransaction, new Hash(new byte[] {}), validator);
+    Block genesisBlock = miner.mine(0, initialTransaction, new Hash(new byte[] {}), validator,
+        engine);
 
     // Validate the genesis block
-    if (!validator.isValid(genesisBlock.getHash())) {
+    if (!genesisBlock.getHash().satisfies(validator)) {
       throw new IllegalStateException("Genesis block is invalid.");
     } // if
 
-    this.head = new Node(genesisBlock, null);
+    if (arena != null) {
+      genesisBlock.moveTo(arena);
+    } // if
+    this.head = new Node(genesisBlock, null, validator);
     this.tail = head;
     this.size = 1;
-  } // BlockChain
+  } // BlockChain(HashValidator, Miner, DigestEngine, boolean)
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Check a transaction and build the template for the block that would hold it at the
+   * end of the chain.
+   *
+   * @param t The transaction that goes in the block.
+   * @return the template for the new block.
+   * @throws IllegalArgumentException if the transaction is invalid.
+   */
+  private BlockTemplate template(Transaction t) {
+    return templateAfter(t, null);
+  } // template(Transaction)
+
+  /**
+   * Check a transaction and build the template for the block that would hold it after a
+   * block that is about to be appended, as if that block were already at the end of
+   * the chain.
+   *
+   * @param t The transaction that goes in the block.
+   * @param parent The block that will come before it, or null (or the last block) to
+   *   build on the end of the chain as it is.
+   * @return the template for the new block.
+   * @throws IllegalArgumentException if the transaction is invalid.
+   * @throws IllegalStateException if the parent would not fit on the end of the chain.
+   */
+  BlockTemplate templateAfter(Transaction t, Block parent) {
+    if (t == null) {
+      throw new IllegalArgumentException("Transaction cannot be null.");
+    } //if
+    boolean pending = (parent != null) && (parent != tail.data);
+    if (pending && ((parent.getNum() != size)
+        || !parent.getPrevHash().equals(tail.data.getHash()))) {
+      throw new IllegalStateException("Block " + parent.getNum()
+          + " does not follow the end of the chain.");
+    } //if
+
+    // Validate the transaction (e.g., source must have sufficient balance)
+    if (!t.getSource().isEmpty()) {
+      int available = balance(t.getSource());
+      if (pending) {
+        Transaction p = parent.getTransaction();
+        if (p.getSource().equals(t.getSource())) {
+          available -= p.getAmount();
+        } //if
+        if (p.getTarget().equals(t.getSource())) {
+          available += p.getAmount();
+        } //if
+      } //if
+      if (available < t.getAmount()) {
+        throw new IllegalArgumentException("Insufficient balance for source: " + t.getSource());
+      } //if
+    } //if
+
+    return pending
+        ? new BlockTemplate(size + 1, t, parent.getHash(), engine)
+        : new BlockTemplate(size, t, tail.data.getHash(), engine);
+  } // templateAfter(Transaction, Block)
+
+  /**
+   * Note that we appended a block, and adjust the difficulty if a retargeting window
+   * just ended.
+   */
+  private void retarget() {
+    windowBlocks++;
+    if ((retargetPolicy != null) && (windowBlocks >= retargetPolicy.getWindow())) {
+      long now = System.nanoTime();
+      validator = retargetPolicy.retarget((DifficultyValidator) validator, now - windowStart,
+          windowBlocks);
+      windowStart = now;
+      windowBlocks = 0;
+    } //if
+  } // retarget()
 
   // +---------+-----------------------------------------------------
   // | Methods |
@@ -118,17 +291,199 @@ public class BlockChain implements Iterable<Transaction> {
    * @return a new block with correct number, hashes, and such.
    */
   public Block mine(Transaction t) {
-    if (t == null) {
-      throw new IllegalArgumentException("Transaction cannot be null.");
+    BlockTemplate template = template(t);
+    return template.toBlock(miner.search(template, validator));
+  } //mine()
+
+  /**
+   * Start mining for a new valid block for the end of the chain as it is now. The
+   * mining runs in the common fork/join pool.
+   *
+   * @param t The transaction that goes in the block.
+   * @return a future for the new block. Cancelling it stops the mining.
+   */
+  public CompletableFuture<Block> mineAsync(Transaction t) {
+    return mineAsync(t, null, ForkJoinPool.commonPool());
+  } // mineAsync(Transaction)
+
+  /**
+   * Start mining for a new valid block for the end of the chain as it is now.
+   *
+   * @param t The transaction that goes in the block.
+   * @param executor The executor that runs the mining.
+   * @return a future for the new block. Cancelling it stops the mining.
+   */
+  public CompletableFuture<Block> mineAsync(Transaction t, Executor executor) {
+    return mineAsync(t, null, executor);
+  } // mineAsync(Transaction, Executor)
+
+  /**
+   * Start mining for a new valid block for the end of the chain as it is now, giving up
+   * after a deadline. Mining stops within a few thousand hashes of the future being
+   * cancelled or timing out.
+   *
+   * @param t The transaction that goes in the block.
+   * @param timeout How long to mine before the future fails with a TimeoutException,
+   *   or null to mine until we find a nonce.
+   * @param executor The executor that runs the mining.
+   * @return a future for the new block. Cancelling it stops the mining.
+   * @throws IllegalArgumentException if the transaction is invalid.
+   */
+  public CompletableFuture<Block> mineAsync(Transaction t, Duration timeout,
+      Executor executor) {
+    if (executor == null) {
+      throw new IllegalArgumentException("Executor cannot be null.");
     } //if
+    return mineAsync(template(t), validator, timeout, executor);
+  } // mineAsync(Transaction, Duration, Executor)
 
-    // Validate the transaction (e.g., source must have sufficient balance)
-    if (!t.getSource().isEmpty() && balance(t.getSource()) < t.getAmount()) {
-      throw new IllegalArgumentException("Insufficient balance for source: " + t.getSource());
+  /**
+   * Start mining a block template.
+   *
+   * @param template The block to mine, without its nonce.
+   * @param check The validator the block must satisfy.
+   * @param timeout How long to mine before the future fails with a TimeoutException,
+   *   or null to mine until we find a nonce.
+   * @param executor The executor that runs the mining.
+   * @return a future for the new block. Cancelling it stops the mining.
+   */
+  CompletableFuture<Block> mineAsync(BlockTemplate template, HashValidator check,
+      Duration timeout, Executor executor) {
+    CompletableFuture<Block> result = new CompletableFuture<>();
+    if (timeout != null) {
+      result.orTimeout(timeout.toNanos(), TimeUnit.NANOSECONDS);
     } //if
+    try {
+      executor.execute(() -> {
+        try {
+          result.complete(template.toBlock(miner.search(template, check, result::isDone)));
+        } catch (CancellationException e) {
+          result.cancel(false);
+        } catch (RuntimeException e) {
+          result.completeExceptionally(e);
+        } //try/catch
+      });
+    } catch (RuntimeException e) {
+      result.completeExceptionally(e);
+    } //try/catch
+    return result;
+  } // mineAsync(BlockTemplate, HashValidator, Duration, Executor)
 
-    return new Block(size, t, tail.data.getHash(), validator);
-  } //mine()
+  /**
+   * Get the validator that new blocks must satisfy.
+   *
+   * @return the current validator.
+   */
+  public HashValidator getValidator() {
+    return validator;
+  } //getValidator()
+
+  /**
+   * Estimate how many hashes the next block will take under the current validator.
+   *
+   * @return the estimate.
+   */
+  public WorkEstimate estimateWork() {
+    return WorkEstimate.of(validator, engine.getDigestLength(), WorkEstimate.DEFAULT_SAMPLES);
+  } //estimateWork()
+
+  /**
+   * Estimate how long the next block will take, at the hash rate our miner has measured.
+   *
+   * @return the expected time, or null if the miner has not searched yet or the
+   *   validator accepted none of the digests we sampled, so that we only know the
+   *   block will take at least some time (see estimateWork()).
+   */
+  public Duration estimateTime() {
+    WorkEstimate work = estimateWork();
+    if (work.isUpperBound()) {
+      return null;
+    } //if
+    return work.getEta(miner.getStats());
+  } //estimateTime()
+
+  /**
+   * Adjust the difficulty of new blocks according to a policy, based on how long blocks
+   * take to arrive from now on. Blocks already in the chain keep the difficulty they
+   * were added with.
+   *
+   * @param policy The policy, or null to stop adjusting the difficulty.
+   * @throws IllegalStateException if the chain's validator is not a DifficultyValidator.
+   */
+  public void setRetargetPolicy(RetargetPolicy policy) {
+    if ((policy != null) && !(validator instanceof DifficultyValidator)) {
+      throw new IllegalStateException("Only a DifficultyValidator can be retargeted.");
+    } //if
+    retargetPolicy = policy;
+    windowStart = System.nanoTime();
+    windowBlocks = 0;
+  } //setRetargetPolicy(RetargetPolicy)
+
+  /**
+   * Get the policy for adjusting the difficulty.
+   *
+   * @return the policy, or null if the difficulty is fixed.
+   */
+  public RetargetPolicy getRetargetPolicy() {
+    return retargetPolicy;
+  } //getRetargetPolicy()
+
+  /**
+   * Limit how much of the processor mining for this chain uses, so that looking up
+   * balances and appending blocks stay quick while we mine. Both of those count as
+   * urgent work, and the miner's workers rest while they run. The scheduler belongs to
+   * the chain's miner, so it applies to every chain that shares the miner.
+   *
+   * @param scheduler The scheduler, or null to mine flat out.
+   */
+  public void setScheduler(MiningScheduler scheduler) {
+    miner.setScheduler(scheduler);
+  } //setScheduler(MiningScheduler)
+
+  /**
+   * Get what limits how much of the processor mining for this chain uses.
+   *
+   * @return the scheduler, or null if we mine flat out.
+   */
+  public MiningScheduler getScheduler() {
+    return miner.getScheduler();
+  } //getScheduler()
+
+  /**
+   * Get the miner that finds nonces for this chain.
+   *
+   * @return the miner.
+   */
+  public Miner getMiner() {
+    return miner;
+  } //getMiner()
+
+  /**
+   * Get the engine that hashes the blocks of this chain.
+   *
+   * @return the digest engine.
+   */
+  public DigestEngine getEngine() {
+    return engine;
+  } //getEngine()
+
+  /**
+   * Determine whether we keep the hashes of our blocks outside the heap.
+   *
+   * @return true if the hashes are off the heap.
+   */
+  public boolean isOffHeap() {
+    return arena != null;
+  } //isOffHeap()
+
+  /**
+   * Get the number of bytes we have set aside outside the heap for hashes.
+   *
+   * @return the number of bytes, which is 0 if the hashes are on the heap.
+   */
+  public long getOffHeapBytes() {
+    return (arena == null) ? 0 : arena.getReserved();
+  } //getOffHeapBytes()
 
   /**
    * Get the number of blocks currently in the chain.
@@ -140,25 +495,65 @@ public class BlockChain implements Iterable<Transaction> {
   } //getSize()
 
   /**
-   * Add a block to the end of the chain.
+   * Add a block to the end of the chain. The block's previous hash is replaced by the
+   * last block's hash, which is equal, so the chain keeps one copy of each hash. If we
+   * keep hashes off the heap, the block's hash moves there instead.
    *
    * @param blk The block to add to the end of the chain.
-   * @throws IllegalArgumentException if the block is invalid or has incorrect hashes.
+   * @throws IllegalArgumentException if the block is invalid, has incorrect hashes, or
+   *   was hashed with a different algorithm than the chain uses.
    */
   public void append(Block blk) {
+    MiningScheduler pacing = miner.getScheduler();
+    if (pacing != null) {
+      pacing.beginUrgent();
+    } //if
+    try {
+      appendBlock(blk);
+    } finally {
+      if (pacing != null) {
+        pacing.endUrgent();
+      } //if
+    } //try/finally
+  } //append()
+
+  /**
+   * Add a block to the end of the chain, while mining waits.
+   *
+   * @param blk The block to add to the end of the chain.
+   * @throws IllegalArgumentException if the block does not fit on the end of the chain,
+   *   or if we keep hashes off the heap and another such chain already holds the block.
+   */
+  private void appendBlock(Block blk) {
+    if ((arena != null) && blk.isInArena()) {
+      throw new IllegalArgumentException("Block " + blk.getNum()
+          + " is already in a chain that keeps its hashes off the heap.");
+    } //if
+    if (!blk.getEngine().getAlgorithm().equals(engine.getAlgorithm())) {
+      throw new IllegalArgumentException("Block was hashed with "
+          + blk.getEngine().getAlgorithm() + ", but the chain uses "
+          + engine.getAlgorithm() + ".");
+    } //if
     if (!blk.getPrevHash().equals(tail.data.getHash())) {
       throw new IllegalArgumentException("Previous hash mismatch.");
     } //if
-    if (!validator.isValid(blk.getHash())) {
+    if (!blk.getHash().satisfies(validator)) {
       throw new IllegalArgumentException("Block hash is invalid.");
     } //if
-    tail.next = new Node(blk, null);
+    if (arena == null) {
+      blk.sharePrevHash(tail.data.getHash());
+    } else {
+      blk.moveTo(arena);
+    } //if/else
+    tail.next = new Node(blk, null, validator);
     tail = tail.next;
     size++;
-  } //append()
+    retarget();
+  } //appendBlock(Block)
 
   /**
-   * Attempt to remove the last block from the chain.
+   * Attempt to remove the last block from the chain. The block no longer counts toward
+   * the current retargeting window, unless the window began after it.
    *
    * @return false if the chain has only one block, true otherwise.
    */
@@ -170,9 +565,16 @@ public class BlockChain implements Iterable<Transaction> {
     while (current.next != tail) {
       current = current.next;
     } //while
+    if (arena != null) {
+      tail.data.moveOut();
+      arena.truncate(size - 1);
+    } //if
     current.next = null;
     tail = current;
     size--;
+    if (windowBlocks > 0) {
+      windowBlocks--;
+    } //if
     return true;
   } //removeLast()
 
@@ -200,7 +602,7 @@ public class BlockChain implements Iterable<Transaction> {
       if (!nextBlock.getPrevHash().equals(currentBlock.getHash())) {
         return false;
       } //if
-      if (!validator.isValid(currentBlock.getHash())) {
+      if (!currentBlock.getHash().satisfies(current.validator)) {
         return false;
       } //if
 
@@ -232,7 +634,7 @@ public class BlockChain implements Iterable<Transaction> {
       if (!nextBlock.getPrevHash().equals(currentBlock.getHash())) {
         throw new Exception("Invalid previous hash at block " + blockNum);
       } //if
-      if (!validator.isValid(currentBlock.getHash())) {
+      if (!currentBlock.getHash().satisfies(current.validator)) {
         throw new Exception("Invalid hash at block " + blockNum);
       } //if
 
@@ -279,6 +681,26 @@ public class BlockChain implements Iterable<Transaction> {
    * @return the user's balance.
    */
   public int balance(String user) {
+    MiningScheduler pacing = miner.getScheduler();
+    if (pacing != null) {
+      pacing.beginUrgent();
+    } //if
+    try {
+      return balanceOf(user);
+    } finally {
+      if (pacing != null) {
+        pacing.endUrgent();
+      } //if
+    } //try/finally
+  } //balance
+
+  /**
+   * Find one user's balance, while mining waits.
+   *
+   * @param user The user whose balance we want to find.
+   * @return the user's balance.
+   */
+  private int balanceOf(String user) {
     int balance = 0;
     Node current = head;
 
@@ -298,7 +720,7 @@ public class BlockChain implements Iterable<Transaction> {
       current = current.next;
     } //while
     return balance;
-  } //balance
+  } //balanceOf(String)
 
   /**
    * Get an iterator for all the blocks in the chain.
@@ -0,0 +1,329 @@
+package edu.grinnell.csc207.blockchains;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * The part of a block that gets hashed. A header always has the same length for a given
+ * digest engine: the block number, the previous hash, the digest of the transaction, and
+ * the nonce. The transaction is bound to the header through its digest, so mining costs
+ * the same no matter how long the transaction is, and a header can be sent and checked
+ * without the transaction.
+ *
+ * <p>The previous hash goes into the header as it is when it is as long as a digest
+ * (which it is for every block but the first), and as its digest otherwise. The
+ * transaction digest covers the source, the target, and the amount, in that order, with
+ * the length of the source and of the target before each, so that moving characters
+ * from one to the other changes the digest.
+ *
+ * @author Moise Milenge
+ * @author Tiffany Yan
+ */
+public final class BlockHeader {
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The block number.
+   */
+  private final int number;
+
+  /**
+   * The previous hash, as it appears in the header.
+   */
+  private final Hash prevHash;
+
+  /**
+   * The digest of the transaction.
+   */
+  private final Hash transactionDigest;
+
+  /**
+   * The nonce.
+   */
+  private final long nonce;
+
+  /**
+   * The engine that hashes the header.
+   */
+  private final DigestEngine engine;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a header from its fields.
+   *
+   * @param num The block number.
+   * @param prevHashes The previous hash, as it appears in the header.
+   * @param transactionDigests The digest of the transaction.
+   * @param nonces The nonce.
+   * @param engines The engine that hashes the header.
+   */
+  BlockHeader(int num, Hash prevHashes, Hash transactionDigests, long nonces,
+      DigestEngine engines) {
+    this.number = num;
+    this.prevHash = prevHashes;
+    this.transactionDigest = transactionDigests;
+    this.nonce = nonces;
+    this.engine = engines;
+  } // BlockHeader(int, Hash, Hash, long, DigestEngine)
+
+  // +----------------+----------------------------------------------
+  // | Static methods |
+  // +----------------+
+
+  /**
+   * Get the length of the headers an engine hashes.
+   *
+   * @param engine The engine.
+   * @return the number of bytes in a header.
+   */
+  public static int length(DigestEngine engine) {
+    return prefixLength(engine) + Long.BYTES;
+  } // length(DigestEngine)
+
+  /**
+   * Read a header that was written by toBytes().
+   *
+   * @param bytes The header.
+   * @param engine The engine that hashes the header.
+   * @return the header.
+   * @throws IllegalArgumentException if the header has the wrong length for the engine.
+   */
+  public static BlockHeader fromBytes(byte[] bytes, DigestEngine engine) {
+    if (bytes.length != length(engine)) {
+      throw new IllegalArgumentException("A " + engine.getAlgorithm() + " header has "
+          + length(engine) + " bytes, not " + bytes.length + ".");
+    } // if
+    int digest = engine.getDigestLength();
+    int pos = Integer.BYTES;
+    Hash prev = new Hash(Arrays.copyOfRange(bytes, pos, pos + digest));
+    pos += digest;
+    Hash transaction = new Hash(Arrays.copyOfRange(bytes, pos, pos + digest));
+    pos += digest;
+    return new BlockHeader(getInt(bytes, 0), prev, transaction, getLong(bytes, pos), engine);
+  } // fromBytes(byte[], DigestEngine)
+
+  /**
+   * Compute the digest of a transaction.
+   *
+   * @param t The transaction.
+   * @param engine The engine whose algorithm we use.
+   * @return the digest of the source, target, and amount.
+   */
+  static Hash transactionDigest(Transaction t, DigestEngine engine) {
+    MessageDigest md = messageDigest(engine);
+    byte[] number = new byte[Integer.BYTES];
+    for (String name : new String[] {t.getSource(), t.getTarget()}) {
+      byte[] bytes = name.getBytes();
+      Sha256.putInt(number, 0, bytes.length);
+      md.update(number);
+      md.update(bytes);
+    } // for
+    Sha256.putInt(number, 0, t.getAmount());
+    md.update(number);
+    return new Hash(md.digest());
+  } // transactionDigest(Transaction, DigestEngine)
+
+  /**
+   * Find how a previous hash appears in a header.
+   *
+   * @param prevHash The previous hash, or null for none.
+   * @param engine The engine that hashes the header.
+   * @return the previous hash if it is as long as a digest, and its digest otherwise.
+   */
+  static Hash prevField(Hash prevHash, DigestEngine engine) {
+    if (prevHash == null) {
+      return new Hash(messageDigest(engine).digest());
+    } // if
+    if (prevHash.length() == engine.getDigestLength()) {
+      return prevHash;
+    } // if
+    MessageDigest md = messageDigest(engine);
+    prevHash.writeTo(md);
+    return new Hash(md.digest());
+  } // prevField(Hash, DigestEngine)
+
+  /**
+   * Encode everything in a header but the nonce.
+   *
+   * @param num The block number.
+   * @param prevField The previous hash, as it appears in the header.
+   * @param transactionDigest The digest of the transaction.
+   * @param engine The engine that hashes the header.
+   * @return the bytes that come before the nonce.
+   */
+  static byte[] prefix(int num, Hash prevField, Hash transactionDigest, DigestEngine engine) {
+    byte[] prefix = new byte[prefixLength(engine)];
+    int digest = engine.getDigestLength();
+    Sha256.putInt(prefix, 0, num);
+    prevField.writeTo(prefix, Integer.BYTES);
+    transactionDigest.writeTo(prefix, Integer.BYTES + digest);
+    return prefix;
+  } // prefix(int, Hash, Hash, DigestEngine)
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Get the block number.
+   *
+   * @return the number of the block.
+   */
+  public int getNum() {
+    return this.number;
+  } // getNum()
+
+  /**
+   * Get the previous hash as it appears in the header.
+   *
+   * @return the previous hash, or its digest if it is not as long as a digest.
+   */
+  public Hash getPrevHash() {
+    return this.prevHash;
+  } // getPrevHash()
+
+  /**
+   * Get the digest of the transaction.
+   *
+   * @return the transaction digest.
+   */
+  public Hash getTransactionDigest() {
+    return this.transactionDigest;
+  } // getTransactionDigest()
+
+  /**
+   * Get the nonce.
+   *
+   * @return the nonce.
+   */
+  public long getNonce() {
+    return this.nonce;
+  } // getNonce()
+
+  /**
+   * Get the engine that hashes the header.
+   *
+   * @return the digest engine.
+   */
+  public DigestEngine getEngine() {
+    return this.engine;
+  } // getEngine()
+
+  /**
+   * Determine whether a transaction is the one this header holds.
+   *
+   * @param t The transaction.
+   * @return true if the transaction has the header's digest.
+   */
+  public boolean holds(Transaction t) {
+    return this.transactionDigest.equals(transactionDigest(t, this.engine));
+  } // holds(Transaction)
+
+  /**
+   * Determine whether this header comes right after a block with a given hash.
+   *
+   * @param prev The hash of the previous block.
+   * @return true if the header links to that hash.
+   */
+  public boolean follows(Hash prev) {
+    return this.prevHash.equals(prevField(prev, this.engine));
+  } // follows(Hash)
+
+  /**
+   * Compute the hash of the block this header belongs to.
+   *
+   * @return the hash.
+   */
+  public Hash computeHash() {
+    byte[] digest = new byte[this.engine.getDigestLength()];
+    this.engine.newHasher(prefix(this.number, this.prevHash, this.transactionDigest,
+        this.engine)).hash(this.nonce, digest);
+    return new Hash(digest);
+  } // computeHash()
+
+  /**
+   * Encode the header, in the order it is hashed.
+   *
+   * @return the bytes of the header.
+   */
+  public byte[] toBytes() {
+    byte[] prefix = prefix(this.number, this.prevHash, this.transactionDigest, this.engine);
+    byte[] bytes = Arrays.copyOf(prefix, prefix.length + Long.BYTES);
+    Sha256.putLong(bytes, prefix.length, this.nonce);
+    return bytes;
+  } // toBytes()
+
+  /**
+   * Get a string representation of the header.
+   *
+   * @return a string representation of the header.
+   */
+  public String toString() {
+    return String.format("Header %d (transaction: %s, nonce: %d, prevHash: %s)", this.number,
+        this.transactionDigest, this.nonce, this.prevHash);
+  } // toString()
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Get the number of bytes that come before the nonce in a header.
+   *
+   * @param engine The engine that hashes the header.
+   * @return the length of the prefix.
+   */
+  private static int prefixLength(DigestEngine engine) {
+    return Integer.BYTES + 2 * engine.getDigestLength();
+  } // prefixLength(DigestEngine)
+
+  /**
+   * Get a one-shot digest for an engine's algorithm.
+   *
+   * @param engine The engine.
+   * @return a new message digest.
+   */
+  static MessageDigest messageDigest(DigestEngine engine) {
+    try {
+      return MessageDigest.getInstance(engine.getAlgorithm());
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(engine.getAlgorithm() + " algorithm not found.", e);
+    } // try/catch
+  } // messageDigest(DigestEngine)
+
+  /**
+   * Read a big-endian int.
+   *
+   * @param bytes Where to read it from.
+   * @param offset Where it starts.
+   * @return the int.
+   */
+  private static int getInt(byte[] bytes, int offset) {
+    int value = 0;
+    for (int i = 0; i < Integer.BYTES; i++) {
+      value = (value << 8) | (bytes[offset + i] & 0xff);
+    } // for
+    return value;
+  } // getInt(byte[], int)
+
+  /**
+   * Read a big-endian long.
+   *
+   * @param bytes Where to read it from.
+   * @param offset Where it starts.
+   * @return the long.
+   */
+  private static long getLong(byte[] bytes, int offset) {
+    long value = 0;
+    for (int i = 0; i < Long.BYTES; i++) {
+      value = (value << 8) | (bytes[offset + i] & 0xff);
+    } // for
+    return value;
+  } // getLong(byte[], int)
+} // class BlockHeader
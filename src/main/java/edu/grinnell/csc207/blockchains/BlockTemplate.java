@@ -0,0 +1,211 @@
+package edu.grinnell.csc207.blockchains;
+
+/**
+ * Everything about a block except its nonce. We digest the transaction and encode the
+ * rest of the block header once, and each thread that tries nonces gets its own hasher
+ * from the digest engine, so trying a nonce allocates nothing and costs the same however
+ * long the transaction is.
+ *
+ * @author Moise Milenge
+ * @author Tiffany Yan
+ */
+final class BlockTemplate {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * Whether we can hash several nonces at once with Sha256Lanes. That needs the JVM to
+   * have loaded the vector module and the processor to have vectors of at least
+   * Sha256Lanes.MIN_LANES ints.
+   */
+  private static final boolean LANES_AVAILABLE =
+      ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()
+      && (Sha256Lanes.preferredLanes() >= Sha256Lanes.MIN_LANES);
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The block number.
+   */
+  final int number;
+
+  /**
+   * Transaction stored in the block.
+   */
+  final Transaction transaction;
+
+  /**
+   * Hash of the previous block.
+   */
+  final Hash prevHash;
+
+  /**
+   * The engine that computes the digests.
+   */
+  final DigestEngine engine;
+
+  /**
+   * The previous hash, as it appears in the header.
+   */
+  private final Hash prevField;
+
+  /**
+   * The digest of the transaction.
+   */
+  private final Hash transactionDigest;
+
+  /**
+   * How the block was mined together with blocks for other chains, or null if it was
+   * mined on its own.
+   */
+  final MergeProof proof;
+
+  /**
+   * The bytes we hash before the nonce: the block's header, or the merged header if the
+   * block was mined together with others.
+   */
+  private final byte[] prefix;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a new template from the specified block number, transaction, and previous
+   * hash, hashed with the default engine.
+   *
+   * @param num The number of the block.
+   * @param transactions The transaction for the block.
+   * @param prevHashes The hash of the previous block.
+   */
+  BlockTemplate(int num, Transaction transactions, Hash prevHashes) {
+    this(num, transactions, prevHashes, DigestEngine.SHA_256);
+  } // BlockTemplate(int, Transaction, Hash)
+
+  /**
+   * Create a new template from the specified block number, transaction, previous hash,
+   * and digest engine.
+   *
+   * @param num The number of the block.
+   * @param transactions The transaction for the block.
+   * @param prevHashes The hash of the previous block.
+   * @param engines The engine that computes the digests.
+   */
+  BlockTemplate(int num, Transaction transactions, Hash prevHashes, DigestEngine engines) {
+    this(num, transactions, prevHashes, engines, null);
+  } // BlockTemplate(int, Transaction, Hash, DigestEngine)
+
+  /**
+   * Create a new template for a block that is mined together with blocks for other
+   * chains.
+   *
+   * @param num The number of the block.
+   * @param transactions The transaction for the block.
+   * @param prevHashes The hash of the previous block.
+   * @param engines The engine that computes the digests.
+   * @param proofs How the block is mined with the others, or null to mine it alone.
+   * @throws IllegalArgumentException if the proof does not commit to this block.
+   */
+  BlockTemplate(int num, Transaction transactions, Hash prevHashes, DigestEngine engines,
+      MergeProof proofs) {
+    this.number = num;
+    this.transaction = transactions;
+    this.prevHash = prevHashes;
+    this.engine = engines;
+
+    this.prevField = BlockHeader.prevField(prevHashes, engines);
+    this.transactionDigest = BlockHeader.transactionDigest(transactions, engines);
+    byte[] header = BlockHeader.prefix(num, this.prevField, this.transactionDigest, engines);
+    this.proof = proofs;
+    this.prefix = (proofs == null) ? header : proofs.prefix(header, engines);
+  } // BlockTemplate(int, Transaction, Hash, DigestEngine, MergeProof)
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Create a hasher for this template. Hashers are not thread safe, so each thread needs
+   * its own.
+   *
+   * @return a new hasher.
+   */
+  DigestEngine.Hasher newHasher() {
+    return this.engine.newHasher(this.prefix);
+  } // newHasher()
+
+  /**
+   * Determine whether newLanes() will work on this JVM and processor.
+   *
+   * @return true if we can hash several nonces at once.
+   */
+  static boolean lanesAvailable() {
+    return LANES_AVAILABLE;
+  } // lanesAvailable()
+
+  /**
+   * Determine whether newLanes() will work for this template, which also needs the
+   * engine to compute SHA-256.
+   *
+   * @return true if we can hash several nonces of this template at once.
+   */
+  boolean lanesApply() {
+    return LANES_AVAILABLE && "SHA-256".equals(this.engine.getAlgorithm());
+  } // lanesApply()
+
+  /**
+   * Create a hasher that tries several consecutive nonces at once. Like hashers, these
+   * are not thread safe. Only call this when lanesApply() is true.
+   *
+   * @return a new multi-lane hasher.
+   */
+  Sha256Lanes newLanes() {
+    return new Sha256Lanes(this.prefix);
+  } // newLanes()
+
+  /**
+   * Get the bytes we hash before the nonce.
+   *
+   * @return the prefix, which the caller must not change.
+   */
+  byte[] prefix() {
+    return this.prefix;
+  } // prefix()
+
+  /**
+   * Compute the hash of the block with a particular nonce.
+   *
+   * @param nonce The nonce of the block.
+   * @return the computed hash.
+   */
+  Hash hash(long nonce) {
+    byte[] digest = new byte[this.engine.getDigestLength()];
+    this.newHasher().hash(nonce, digest);
+    return new Hash(digest);
+  } // hash(long)
+
+  /**
+   * Build the header of the block with a particular nonce.
+   *
+   * @param nonce The nonce of the block.
+   * @return the header.
+   */
+  BlockHeader header(long nonce) {
+    return new BlockHeader(this.number, this.prevField, this.transactionDigest, nonce,
+        this.engine);
+  } // header(long)
+
+  /**
+   * Build the block with a particular nonce.
+   *
+   * @param nonce The nonce of the block.
+   * @return the block.
+   */
+  Block toBlock(long nonce) {
+    return new Block(this.number, this.transaction, this.prevHash, nonce, this.engine,
+        this.proof);
+  } // toBlock(long)
+} // class BlockTemplate
@@ -0,0 +1,233 @@
+package edu.grinnell.csc207.blockchains;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.math.BigInteger;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Validators that accept a hash when, read as an unsigned big-endian number, it is no
+ * larger than a target. A difficulty of n leading zero bits is the target 2^(256-n)-1.
+ * We read digests eight bytes at a time rather than byte by byte.
+ *
+ * @author Moise Milenge
+ * @author Tiffany Yan
+ */
+public class DifficultyValidator implements HashValidator {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The number of bits in the digests we validate.
+   */
+  public static final int DIGEST_BITS = 256;
+
+  /**
+   * The number of longs in the digests we validate.
+   */
+  private static final int WORDS = DIGEST_BITS / Long.SIZE;
+
+  /**
+   * Reads big-endian longs from byte arrays.
+   */
+  private static final VarHandle LONGS =
+      MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+  /**
+   * The largest possible target.
+   */
+  private static final BigInteger MAX_TARGET = BigInteger.ONE.shiftLeft(DIGEST_BITS)
+      .subtract(BigInteger.ONE);
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The number of leading zero bits we require, or -1 if the target is not of that form.
+   */
+  private final int bits;
+
+  /**
+   * The target, as big-endian words.
+   */
+  private final long[] target;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a validator that requires a number of leading zero bits.
+   *
+   * @param zeroBits The number of leading zero bits, between 0 and 256 (inclusive).
+   * @throws IllegalArgumentException if zeroBits is out of range.
+   */
+  public DifficultyValidator(int zeroBits) {
+    if ((zeroBits < 0) || (zeroBits > DIGEST_BITS)) {
+      throw new IllegalArgumentException("Difficulty must be between 0 and 256 bits.");
+    } // if
+    this.bits = zeroBits;
+    this.target = words(MAX_TARGET.shiftRight(zeroBits));
+  } // DifficultyValidator(int)
+
+  /**
+   * Create a validator that accepts hashes no larger than a 256-bit target.
+   *
+   * @param targetHash The target, as 32 big-endian bytes.
+   * @throws IllegalArgumentException if the target is not 32 bytes long.
+   */
+  public DifficultyValidator(Hash targetHash) {
+    this(new BigInteger(1, checkLength(targetHash).getBytes()));
+  } // DifficultyValidator(Hash)
+
+  /**
+   * Create a validator that accepts hashes no larger than a target.
+   *
+   * @param targetValue The target, between 0 and 2^256-1 (inclusive).
+   */
+  DifficultyValidator(BigInteger targetValue) {
+    if ((targetValue.signum() < 0) || (targetValue.compareTo(MAX_TARGET) > 0)) {
+      throw new IllegalArgumentException("Target must fit in 256 bits.");
+    } // if
+    this.target = words(targetValue);
+    int zeros = DIGEST_BITS - targetValue.bitLength();
+    this.bits = targetValue.equals(MAX_TARGET.shiftRight(zeros)) ? zeros : -1;
+  } // DifficultyValidator(BigInteger)
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  @Override
+  public boolean isValid(Hash hash) {
+    return hash.satisfies(this);
+  } // isValid(Hash)
+
+  @Override
+  public boolean isValid(byte[] digest, int offset, int length) {
+    if (length * Byte.SIZE != DIGEST_BITS) {
+      return false;
+    } // if
+    if (this.bits >= 0) {
+      int remaining = this.bits;
+      int i = 0;
+      while (remaining >= Long.SIZE) {
+        if ((long) LONGS.get(digest, offset + i * Long.BYTES) != 0) {
+          return false;
+        } // if
+        remaining -= Long.SIZE;
+        i++;
+      } // while
+      return (remaining == 0)
+          || (Long.numberOfLeadingZeros((long) LONGS.get(digest, offset + i * Long.BYTES))
+              >= remaining);
+    } // if
+    for (int i = 0; i < WORDS; i++) {
+      long word = (long) LONGS.get(digest, offset + i * Long.BYTES);
+      if (word != this.target[i]) {
+        return Long.compareUnsigned(word, this.target[i]) < 0;
+      } // if
+    } // for
+    return true;
+  } // isValid(byte[], int, int)
+
+  /**
+   * Get the number of leading zero bits this validator requires. For targets that are
+   * not of the form 2^(256-n)-1, this is the number of leading zero bits in the target,
+   * which slightly understates the difficulty.
+   *
+   * @return the number of leading zero bits.
+   */
+  public int getBits() {
+    return (this.bits >= 0) ? this.bits : DIGEST_BITS - this.getTargetValue().bitLength();
+  } // getBits()
+
+  /**
+   * Get the target.
+   *
+   * @return the largest hash this validator accepts.
+   */
+  public Hash getTarget() {
+    byte[] bytes = new byte[DIGEST_BITS / Byte.SIZE];
+    for (int i = 0; i < WORDS; i++) {
+      LONGS.set(bytes, i * Long.BYTES, this.target[i]);
+    } // for
+    return new Hash(bytes);
+  } // getTarget()
+
+  /**
+   * Get the target as a number.
+   *
+   * @return the largest hash this validator accepts, as a number.
+   */
+  BigInteger getTargetValue() {
+    return new BigInteger(1, this.getTarget().getBytes());
+  } // getTargetValue()
+
+  /**
+   * Get a string representation of the validator.
+   *
+   * @return a string representation of the validator.
+   */
+  public String toString() {
+    return (this.bits >= 0)
+        ? "DifficultyValidator[bits=" + this.bits + "]"
+        : "DifficultyValidator[target=" + this.getTarget() + "]";
+  } // toString()
+
+  /**
+   * Determine if this is equal to another object.
+   *
+   * @param other The object to compare to.
+   *
+   * @return true if the other object is a validator with the same target.
+   */
+  public boolean equals(Object other) {
+    return (other instanceof DifficultyValidator)
+        && Arrays.equals(this.target, ((DifficultyValidator) other).target);
+  } // equals(Object)
+
+  /**
+   * Get the hash code of this object.
+   *
+   * @return the hash code.
+   */
+  public int hashCode() {
+    return Arrays.hashCode(this.target);
+  } // hashCode()
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Split a target into big-endian words.
+   *
+   * @param value The target.
+   * @return the words of the target.
+   */
+  private static long[] words(BigInteger value) {
+    long[] result = new long[WORDS];
+    for (int i = 0; i < WORDS; i++) {
+      result[i] = value.shiftRight((WORDS - 1 - i) * Long.SIZE).longValue();
+    } // for
+    return result;
+  } // words(BigInteger)
+
+  /**
+   * Make sure a target has the right length.
+   *
+   * @param targetHash The target.
+   * @return the target.
+   * @throws IllegalArgumentException if the target is not 32 bytes long.
+   */
+  private static Hash checkLength(Hash targetHash) {
+    if (targetHash.length() * Byte.SIZE != DIGEST_BITS) {
+      throw new IllegalArgumentException("Target must be 32 bytes long.");
+    } // if
+    return targetHash;
+  } // checkLength(Hash)
+} // class DifficultyValidator
@@ -0,0 +1,106 @@
+package edu.grinnell.csc207.blockchains;
+
+/**
+ * Ways of computing the digests of blocks. A block is hashed as a prefix, which holds
+ * everything but the nonce, followed by the eight big-endian bytes of the nonce. Engines
+ * that compute the same algorithm produce the same digests, so a chain only cares about
+ * the algorithm, while the implementation can be chosen for speed.
+ *
+ * @author Moise Milenge
+ * @author Tiffany Yan
+ */
+public interface DigestEngine {
+  /**
+   * SHA-256, hashed by the JDK for short blocks and by our own implementation, which
+   * hashes the fixed part of the block only once, for long ones. The default. Block
+   * headers count as short, so in practice this engine mines with the JDK, which is
+   * faster where the processor has SHA instructions; use JAVA_SHA_256 for our own
+   * header hashing.
+   */
+  DigestEngine SHA_256 = new Sha256Engine(Sha256Engine.MIDSTATE_THRESHOLD);
+
+  /**
+   * SHA-256, always hashed by the JDK, which uses the processor's SHA instructions
+   * where it has them.
+   */
+  DigestEngine JDK_SHA_256 = new JdkDigestEngine("SHA-256");
+
+  /**
+   * SHA-256, always hashed by our own implementation, with the SHA-256 written out for
+   * headers. Faster than the JDK only on processors without SHA instructions.
+   */
+  DigestEngine JAVA_SHA_256 = new Sha256Engine(0);
+
+  /**
+   * SHA3-256, hashed by the JDK.
+   */
+  DigestEngine SHA3_256 = new JdkDigestEngine("SHA3-256");
+
+  /**
+   * Get the name of the algorithm this engine computes, in the form MessageDigest uses.
+   *
+   * @return the name of the algorithm, such as "SHA-256".
+   */
+  String getAlgorithm();
+
+  /**
+   * Get the name of this engine, which tells engines for the same algorithm apart.
+   *
+   * @return the name of the engine.
+   */
+  String getName();
+
+  /**
+   * Get the number of bytes in the digests this engine computes.
+   *
+   * @return the length of a digest.
+   */
+  int getDigestLength();
+
+  /**
+   * Create a hasher for a prefix. Hashers are not thread safe, so each thread needs its
+   * own.
+   *
+   * @param prefix
+   *   The bytes that come before the nonce, which the caller must not change while
+   *   the hasher is in use.
+   *
+   * @return a new hasher.
+   */
+  Hasher newHasher(byte[] prefix);
+
+  /**
+   * Find an engine by name.
+   *
+   * @param name
+   *   The name of an engine, ignoring case.
+   *
+   * @return the engine with that name.
+   *
+   * @throws IllegalArgumentException if no engine has that name.
+   */
+  static DigestEngine forName(String name) {
+    for (DigestEngine engine : new DigestEngine[] {SHA_256, JDK_SHA_256, JAVA_SHA_256,
+        SHA3_256}) {
+      if (engine.getName().equalsIgnoreCase(name)) {
+        return engine;
+      } // if
+    } // for
+    throw new IllegalArgumentException("Unknown digest engine: " + name);
+  } // forName(String)
+
+  /**
+   * Hashes a prefix with one nonce after another.
+   */
+  interface Hasher {
+    /**
+     * Compute the digest of the prefix followed by a nonce.
+     *
+     * @param nonce
+     *   The nonce.
+     * @param out
+     *   Where to put the digest, which takes getDigestLength() bytes.
+     */
+    void hash(long nonce, byte[] out);
+  } // interface Hasher
+} // interface DigestEngine
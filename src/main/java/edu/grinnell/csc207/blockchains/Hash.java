@@ -1,24 +1,100 @@
 package edu.grinnell.csc207.blockchains;
 
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.security.MessageDigest;
 import java.util.Arrays;
+import java.util.Objects;
 
 /**
  * Encapsulated hashes.
  * This is written for csc207 fall 2024
  *
+ * <p>Hashes as long as a SHA-256 digest (which is nearly all of them) keep their bytes
+ * in four longs instead of an array, so comparing them takes four comparisons and their
+ * hash code takes no work at all. Hashes of any other length keep an array.
+ *
  * @author Tiffany
  * @author Moses
  * @author Samuel A. Rebelsky
  */
-public class Hash {
+public class Hash implements Comparable<Hash> {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The length of the hashes we keep in longs.
+   */
+  static final int PACKED_LENGTH = 4 * Long.BYTES;
+
+  /**
+   * Reads and writes big-endian longs in byte arrays.
+   */
+  private static final VarHandle LONGS =
+      MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+  /**
+   * The hex digit for each value of a nibble.
+   */
+  private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+  /**
+   * The value of each hex digit, indexed by character, or -1 for characters that are
+   * not hex digits.
+   */
+  private static final byte[] HEX_VALUES = new byte[128];
+
+  /**
+   * Space for each thread to lay out a packed hash before handing it to a message
+   * digest, which copies what it is given.
+   */
+  private static final ThreadLocal<byte[]> SCRATCH =
+      ThreadLocal.withInitial(() -> new byte[PACKED_LENGTH]);
+
+  static {
+    Arrays.fill(HEX_VALUES, (byte) -1);
+    for (int i = 0; i < HEX_DIGITS.length; i++) {
+      HEX_VALUES[HEX_DIGITS[i]] = (byte) i;
+      HEX_VALUES[Character.toLowerCase(HEX_DIGITS[i])] = (byte) i;
+    } // for
+  } // static
+
   // +--------+------------------------------------------------------
   // | Fields |
   // +--------+
   /**
-   * Array that stores byte of array.
+   * Array that stores byte of array, or null if the bytes are in the longs.
+   */
+  private final byte[] data;
+
+  /**
+   * Bytes 0 to 7 of a packed hash, big-endian.
+   */
+  private final long w0;
+
+  /**
+   * Bytes 8 to 15 of a packed hash.
+   */
+  private final long w1;
+
+  /**
+   * Bytes 16 to 23 of a packed hash.
    */
-  private byte[] data;
+  private final long w2;
+
+  /**
+   * Bytes 24 to 31 of a packed hash.
+   */
+  private final long w3;
+
+  /**
+   * The hash as a hex string, once someone has asked for it.
+   */
+  private String hex;
 
   // +--------------+------------------------------------------------
   // | Constructors |
@@ -30,13 +106,79 @@ public class Hash {
    * @param datas The data to copy into the hash.
    */
   public Hash(byte[] datas) {
-    byte[] copy = new byte[datas.length];
-    for (int i = 0; i < datas.length; i++) {
-      copy[i] = datas[i];
-    } // for
-    this.data = copy;
+    this(datas, 0, datas.length);
   } // Hash(byte[])
 
+  /**
+   * Create a new encapsulated hash from part of an array.
+   *
+   * @param datas The array that holds the data to copy into the hash.
+   * @param offset The index of the first byte to copy.
+   * @param len The number of bytes to copy.
+   */
+  public Hash(byte[] datas, int offset, int len) {
+    Objects.checkFromIndexSize(offset, len, datas.length);
+    if (len == PACKED_LENGTH) {
+      this.data = null;
+      this.w0 = (long) LONGS.get(datas, offset);
+      this.w1 = (long) LONGS.get(datas, offset + Long.BYTES);
+      this.w2 = (long) LONGS.get(datas, offset + 2 * Long.BYTES);
+      this.w3 = (long) LONGS.get(datas, offset + 3 * Long.BYTES);
+    } else {
+      this.data = Arrays.copyOfRange(datas, offset, offset + len);
+      this.w0 = 0;
+      this.w1 = 0;
+      this.w2 = 0;
+      this.w3 = 0;
+    } // if/else
+  } // Hash(byte[], int, int)
+
+  /**
+   * Create a packed hash from its longs.
+   *
+   * @param words0 Bytes 0 to 7, big-endian.
+   * @param words1 Bytes 8 to 15.
+   * @param words2 Bytes 16 to 23.
+   * @param words3 Bytes 24 to 31.
+   */
+  Hash(long words0, long words1, long words2, long words3) {
+    this.data = null;
+    this.w0 = words0;
+    this.w1 = words1;
+    this.w2 = words2;
+    this.w3 = words3;
+  } // Hash(long, long, long, long)
+
+  // +----------------+----------------------------------------------
+  // | Static methods |
+  // +----------------+
+
+  /**
+   * Read a hash written by toString(). Lowercase digits are fine too.
+   *
+   * @param hex The hex digits, two for each byte.
+   * @return the hash.
+   * @throws IllegalArgumentException if the string has an odd number of characters or
+   *   something other than hex digits.
+   */
+  public static Hash fromHex(CharSequence hex) {
+    int len = hex.length();
+    if (len % 2 != 0) {
+      throw new IllegalArgumentException("A hex hash needs an even number of digits, not "
+          + len + ".");
+    } // if
+    byte[] bytes = new byte[len / 2];
+    for (int i = 0; i < bytes.length; i++) {
+      int high = hexValue(hex.charAt(2 * i));
+      int low = hexValue(hex.charAt(2 * i + 1));
+      if ((high | low) < 0) {
+        throw new IllegalArgumentException("Not a hex hash: " + hex);
+      } // if
+      bytes[i] = (byte) ((high << 4) | low);
+    } // for
+    return new Hash(bytes);
+  } // fromHex(CharSequence)
+
   // +---------+-----------------------------------------------------
   // | Methods |
   // +---------+
@@ -47,7 +189,7 @@ public class Hash {
    * @return the number of bytes in the hash.
    */
   public int length() {
-    return this.data.length;
+    return (this.data == null) ? PACKED_LENGTH : this.data.length;
   } // length()
 
   /**
@@ -58,33 +200,173 @@ public class Hash {
    * @return the ith byte
    */
   public byte get(int i) {
-    return this.data[i];
+    if (this.data != null) {
+      return this.data[i];
+    } // if
+    Objects.checkIndex(i, PACKED_LENGTH);
+    return (byte) (word(i / Long.BYTES) >>> (Long.SIZE - Byte.SIZE * (1 + i % Long.BYTES)));
   } // get()
 
+  /**
+   * Determine if this hash meets the criterion of a validator, without copying it
+   * more than once.
+   *
+   * @param check The validator.
+   *
+   * @return true if the validator accepts this hash and false otherwise.
+   */
+  boolean satisfies(HashValidator check) {
+    byte[] bytes = (this.data == null) ? getBytes() : this.data;
+    return check.isValid(bytes, 0, bytes.length);
+  } // satisfies(HashValidator)
+
   /**
    * Get a copy of the bytes in the hash. We make a copy so that the client cannot change them.
    *
    * @return a copy of the bytes in the hash.
    */
   public byte[] getBytes() {
-    byte[] copy = new byte[data.length];
-    for (int i = 0; i < data.length; i++) {
-      copy[i] = data[i];
-    } // for
+    if (this.data != null) {
+      return this.data.clone();
+    } // if
+    byte[] copy = new byte[PACKED_LENGTH];
+    writeTo(copy, 0);
     return copy;
   } // getBytes()
 
   /**
-   * Convert to a hex string.
+   * Copy the bytes in the hash into an array, without making a copy of our own.
+   *
+   * @param out The array.
+   * @param offset Where the first byte goes.
+   * @throws IndexOutOfBoundsException if the hash does not fit.
+   */
+  public void writeTo(byte[] out, int offset) {
+    if (this.data != null) {
+      System.arraycopy(this.data, 0, out, offset, this.data.length);
+      return;
+    } // if
+    Objects.checkFromIndexSize(offset, PACKED_LENGTH, out.length);
+    LONGS.set(out, offset, this.w0);
+    LONGS.set(out, offset + Long.BYTES, this.w1);
+    LONGS.set(out, offset + 2 * Long.BYTES, this.w2);
+    LONGS.set(out, offset + 3 * Long.BYTES, this.w3);
+  } // writeTo(byte[], int)
+
+  /**
+   * Feed the bytes in the hash to a message digest. A packed hash has no array to hand
+   * over, so it goes through an array that each thread keeps for the purpose, and
+   * allocates nothing once the thread has one.
+   *
+   * @param md The message digest.
+   */
+  public void writeTo(MessageDigest md) {
+    if (this.data != null) {
+      md.update(this.data);
+    } else {
+      byte[] bytes = SCRATCH.get();
+      writeTo(bytes, 0);
+      md.update(bytes);
+    } // if/else
+  } // writeTo(MessageDigest)
+
+  /**
+   * Put the bytes in the hash into a buffer at its position, whatever the buffer's byte
+   * order, and move the position past them.
+   *
+   * @param buf The buffer.
+   * @throws java.nio.BufferOverflowException if the hash does not fit.
+   */
+  public void writeTo(ByteBuffer buf) {
+    if (this.data != null) {
+      buf.put(this.data);
+      return;
+    } // if
+    boolean big = (buf.order() == ByteOrder.BIG_ENDIAN);
+    buf.putLong(big ? this.w0 : Long.reverseBytes(this.w0));
+    buf.putLong(big ? this.w1 : Long.reverseBytes(this.w1));
+    buf.putLong(big ? this.w2 : Long.reverseBytes(this.w2));
+    buf.putLong(big ? this.w3 : Long.reverseBytes(this.w3));
+  } // writeTo(ByteBuffer)
+
+  /**
+   * Get a read-only buffer of the bytes in the hash. A hash kept in an array shares it
+   * with the buffer. A packed hash has nothing to share, so every call allocates and
+   * fills a new 32-byte buffer; callers that want to avoid that should use
+   * writeTo(ByteBuffer) or writeTo(byte[], int) with space of their own.
+   *
+   * @return a read-only buffer positioned at the first byte.
+   */
+  public ByteBuffer asReadOnlyBuffer() {
+    if (this.data != null) {
+      return ByteBuffer.wrap(this.data).asReadOnlyBuffer();
+    } // if
+    ByteBuffer buf = ByteBuffer.allocate(PACKED_LENGTH);
+    writeTo(buf);
+    return buf.flip().asReadOnlyBuffer();
+  } // asReadOnlyBuffer()
+
+  /**
+   * Find the first byte where this hash and another differ.
+   *
+   * @param other The other hash.
+   * @return the index of the first byte that differs, the length of the shorter hash if
+   *   one is the start of the other, or -1 if the hashes are equal.
+   */
+  public int mismatch(Hash other) {
+    if ((this.data == null) && (other.data == null)) {
+      for (int i = 0; i < PACKED_LENGTH / Long.BYTES; i++) {
+        long diff = this.word(i) ^ other.word(i);
+        if (diff != 0) {
+          return i * Long.BYTES + Long.numberOfLeadingZeros(diff) / Byte.SIZE;
+        } // if
+      } // for
+      return -1;
+    } // if
+    byte[] mine = (this.data == null) ? getBytes() : this.data;
+    byte[] theirs = (other.data == null) ? other.getBytes() : other.data;
+    return Arrays.mismatch(mine, theirs);
+  } // mismatch(Hash)
+
+  /**
+   * Compare this hash to another, byte by byte, treating bytes as unsigned. A hash that
+   * is the start of another comes first.
+   *
+   * @param other The other hash.
+   * @return a negative number, zero, or a positive number as this hash comes before,
+   *   equals, or comes after the other.
+   */
+  @Override
+  public int compareTo(Hash other) {
+    int i = mismatch(other);
+    if (i < 0) {
+      return 0;
+    } // if
+    if ((i == this.length()) || (i == other.length())) {
+      return Integer.compare(this.length(), other.length());
+    } // if
+    return Integer.compare(this.get(i) & 0xFF, other.get(i) & 0xFF);
+  } // compareTo(Hash)
+
+  /**
+   * Convert to a hex string. We build the string the first time we are asked and keep
+   * it. Two threads asking at once may both build it, which does no harm.
    *
    * @return the hash as a hex string.
    */
   public String toString() {
-    StringBuilder outcome = new StringBuilder("");
-    for (byte b : this.data) {
-      outcome.append(String.format("%02X", b));
-    } // for
-    return outcome.toString();
+    String outcome = this.hex;
+    if (outcome == null) {
+      byte[] bytes = (this.data == null) ? getBytes() : this.data;
+      char[] chars = new char[2 * bytes.length];
+      for (int i = 0; i < bytes.length; i++) {
+        chars[2 * i] = HEX_DIGITS[(bytes[i] >> 4) & 0xF];
+        chars[2 * i + 1] = HEX_DIGITS[bytes[i] & 0xF];
+      } // for
+      outcome = new String(chars);
+      this.hex = outcome;
+    } // if
+    return outcome;
   } // toString()
 
   /**
@@ -99,6 +381,10 @@ public class Hash {
       return false;
     } // if
     Hash otherHash = (Hash) other;
+    if ((this.data == null) && (otherHash.data == null)) {
+      return (this.w0 == otherHash.w0) && (this.w1 == otherHash.w1)
+          && (this.w2 == otherHash.w2) && (this.w3 == otherHash.w3);
+    } // if
     if (Arrays.equals(this.data, otherHash.data)) {
       return true;
     } // if
@@ -106,11 +392,48 @@ public class Hash {
   } // equals(Object)
 
   /**
-   * Get the hash code of this object.
+   * Get the hash code of this object. The bits of a digest are as good as random, so
+   * for a packed hash we just fold them together.
    *
    * @return the hash code.
    */
   public int hashCode() {
-    return this.toString().hashCode();
+    if (this.data != null) {
+      return Arrays.hashCode(this.data);
+    } // if
+    return Long.hashCode(this.w0 ^ this.w1 ^ this.w2 ^ this.w3);
   } // hashCode()
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Find the value of a hex digit.
+   *
+   * @param c The digit.
+   * @return its value, or -1 if it is not a hex digit.
+   */
+  private static int hexValue(char c) {
+    return (c < HEX_VALUES.length) ? HEX_VALUES[c] : -1;
+  } // hexValue(char)
+
+  /**
+   * Get one of the longs of a packed hash.
+   *
+   * @param i The index of the long, from 0 to 3.
+   * @return the long.
+   */
+  private long word(int i) {
+    switch (i) {
+      case 0:
+        return this.w0;
+      case 1:
+        return this.w1;
+      case 2:
+        return this.w2;
+      default:
+        return this.w3;
+    } // switch
+  } // word(int)
 } // class Hash
@@ -0,0 +1,167 @@
+package edu.grinnell.csc207.blockchains;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the hashes of a chain's blocks one after another outside the heap, indexed by
+ * block number, so that a long chain does not need a Hash object (and an array or four
+ * longs inside it) for every block. The memory comes in direct buffers of CHUNK_HASHES
+ * hashes each, so the arena grows without copying. We make a Hash from the bytes only
+ * when someone asks for one.
+ *
+ * <p>Like the chain that owns it, an arena is not safe to change while other threads
+ * read it.
+ *
+ * @author Moise Milenge
+ * @author Tiffany Yan
+ */
+final class HashArena {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The number of hashes in each buffer.
+   */
+  static final int CHUNK_HASHES = 1 << 15;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The length of each hash.
+   */
+  private final int length;
+
+  /**
+   * The buffers, each with room for CHUNK_HASHES hashes.
+   */
+  private final List<ByteBuffer> chunks = new ArrayList<>();
+
+  /**
+   * The number of hashes stored.
+   */
+  private int size;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create an empty arena.
+   *
+   * @param lengths The length of each hash.
+   * @throws IllegalArgumentException if the length is not positive.
+   */
+  HashArena(int lengths) {
+    if (lengths < 1) {
+      throw new IllegalArgumentException("Hashes in an arena need at least one byte.");
+    } // if
+    this.length = lengths;
+  } // HashArena(int)
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Get the number of hashes stored.
+   *
+   * @return the number of hashes.
+   */
+  int size() {
+    return this.size;
+  } // size()
+
+  /**
+   * Get the length of each hash.
+   *
+   * @return the number of bytes in a hash.
+   */
+  int getLength() {
+    return this.length;
+  } // getLength()
+
+  /**
+   * Get the number of bytes we have taken outside the heap.
+   *
+   * @return the capacity of our buffers.
+   */
+  long getReserved() {
+    return (long) this.chunks.size() * CHUNK_HASHES * this.length;
+  } // getReserved()
+
+  /**
+   * Store a hash after the others.
+   *
+   * @param hash The hash.
+   * @return the index of the hash.
+   * @throws IllegalArgumentException if the hash has the wrong length.
+   */
+  int add(Hash hash) {
+    if (hash.length() != this.length) {
+      throw new IllegalArgumentException("This arena holds " + this.length
+          + "-byte hashes, not " + hash.length() + "-byte ones.");
+    } // if
+    int index = this.size;
+    if (index / CHUNK_HASHES == this.chunks.size()) {
+      this.chunks.add(ByteBuffer.allocateDirect(CHUNK_HASHES * this.length));
+    } // if
+    ByteBuffer chunk = this.chunks.get(index / CHUNK_HASHES);
+    chunk.position((index % CHUNK_HASHES) * this.length);
+    hash.writeTo(chunk);
+    this.size++;
+    return index;
+  } // add(Hash)
+
+  /**
+   * Make a Hash from a stored hash.
+   *
+   * @param index The index of the hash.
+   * @return the hash.
+   * @throws IndexOutOfBoundsException if there is no hash with that index.
+   */
+  Hash get(int index) {
+    if ((index < 0) || (index >= this.size)) {
+      throw new IndexOutOfBoundsException("No hash " + index + " in an arena of "
+          + this.size + ".");
+    } // if
+    ByteBuffer chunk = this.chunks.get(index / CHUNK_HASHES);
+    int offset = (index % CHUNK_HASHES) * this.length;
+    if (this.length == Hash.PACKED_LENGTH) {
+      return new Hash(chunk.getLong(offset), chunk.getLong(offset + Long.BYTES),
+          chunk.getLong(offset + 2 * Long.BYTES), chunk.getLong(offset + 3 * Long.BYTES));
+    } // if
+    byte[] bytes = new byte[this.length];
+    chunk.get(offset, bytes);
+    return new Hash(bytes);
+  } // get(int)
+
+  /**
+   * Forget the hashes from an index on. Their buffers stay, for the hashes that
+   * replace them.
+   *
+   * @param sizes The number of hashes to keep.
+   * @throws IllegalArgumentException if we have fewer hashes than that.
+   */
+  void truncate(int sizes) {
+    if ((sizes < 0) || (sizes > this.size)) {
+      throw new IllegalArgumentException("Cannot keep " + sizes + " of " + this.size
+          + " hashes.");
+    } // if
+    this.size = sizes;
+  } // truncate(int)
+
+  /**
+   * Get a string representation of the arena.
+   *
+   * @return a string representation of the arena.
+   */
+  public String toString() {
+    return String.format("%d hashes of %d bytes, %d bytes reserved", this.size, this.length,
+        getReserved());
+  } // toString()
+} // class HashArena
@@ -17,4 +17,23 @@ public interface HashValidator {
    */
   boolean isValid(Hash hash);
 
+  /**
+   * Determine if a raw digest meets the same criterion. Miners call this for every
+   * candidate, so validators that override it can reject candidates without wrapping
+   * them in a Hash. The default just wraps the digest and calls isValid(Hash).
+   * Implementations must not change the array.
+   *
+   * @param digest
+   *   The array that holds the digest.
+   * @param offset
+   *   The index of the first byte of the digest.
+   * @param length
+   *   The number of bytes in the digest.
+   *
+   * @return true if the digest is valid and false otherwise.
+   */
+  default boolean isValid(byte[] digest, int offset, int length) {
+    return isValid(new Hash(digest, offset, length));
+  } // isValid(byte[], int, int)
+
 } // interface HashValidator
@@ -0,0 +1,106 @@
+package edu.grinnell.csc207.blockchains;
+
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Digest engines that use the JDK's MessageDigest. Each hasher keeps a copy of the
+ * prefix with room for the nonce after it, so hashing a nonce allocates nothing.
+ *
+ * @author Moise Milenge
+ * @author Tiffany Yan
+ */
+public final class JdkDigestEngine implements DigestEngine {
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The name of the algorithm.
+   */
+  private final String algorithm;
+
+  /**
+   * The number of bytes in a digest.
+   */
+  private final int length;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create an engine for a MessageDigest algorithm.
+   *
+   * @param algorithms The name of the algorithm, such as "SHA-256".
+   * @throws IllegalArgumentException if the JDK does not support the algorithm.
+   */
+  public JdkDigestEngine(String algorithms) {
+    this.algorithm = algorithms;
+    this.length = digest(algorithms).getDigestLength();
+  } // JdkDigestEngine(String)
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  @Override
+  public String getAlgorithm() {
+    return this.algorithm;
+  } // getAlgorithm()
+
+  @Override
+  public String getName() {
+    return this.algorithm + "/JDK";
+  } // getName()
+
+  @Override
+  public int getDigestLength() {
+    return this.length;
+  } // getDigestLength()
+
+  @Override
+  public Hasher newHasher(byte[] prefix) {
+    MessageDigest md = digest(this.algorithm);
+    byte[] scratch = new byte[prefix.length + Long.BYTES];
+    System.arraycopy(prefix, 0, scratch, 0, prefix.length);
+    return (nonce, out) -> {
+      Sha256.putLong(scratch, prefix.length, nonce);
+      md.update(scratch, 0, scratch.length);
+      try {
+        md.digest(out, 0, this.length);
+      } catch (DigestException e) {
+        throw new IllegalStateException(this.algorithm + " digest failed.", e);
+      } // try/catch
+    };
+  } // newHasher(byte[])
+
+  /**
+   * Get a string representation of the engine.
+   *
+   * @return the name of the engine.
+   */
+  public String toString() {
+    return this.getName();
+  } // toString()
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Get a new MessageDigest for an algorithm.
+   *
+   * @param algorithms The name of the algorithm.
+   * @return the digest.
+   * @throws IllegalArgumentException if the JDK does not support the algorithm.
+   */
+  private static MessageDigest digest(String algorithms) {
+    try {
+      return MessageDigest.getInstance(algorithms);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalArgumentException(algorithms + " algorithm not found.", e);
+    } // try/catch
+  } // digest(String)
+} // class JdkDigestEngine
@@ -0,0 +1,122 @@
+package edu.grinnell.csc207.blockchains;
+
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Shows that a block was mined together with blocks for other chains. Each block that
+ * takes part commits to its header (everything but the nonce) with the digest of the
+ * header's bytes. The proof of work is done once, on the merged header: the number of
+ * commitments and the digest of all of them in order, followed by the nonce. A merged
+ * block carries the list of commitments and its place in the list, so anyone can check
+ * that the list holds the block's own commitment and recompute the hash from there.
+ *
+ * @author Moise Milenge
+ * @author Tiffany Yan
+ */
+public final class MergeProof {
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The commitments of every block mined together, in order.
+   */
+  private final List<Hash> commitments;
+
+  /**
+   * The place of this block's commitment in the list.
+   */
+  private final int index;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a proof.
+   *
+   * @param commitment The commitments of every block mined together, in order.
+   * @param indexes The place of this block's commitment in the list.
+   * @throws IllegalArgumentException if the list is empty or the index is out of range.
+   */
+  public MergeProof(List<Hash> commitment, int indexes) {
+    if (commitment.isEmpty()) {
+      throw new IllegalArgumentException("A merge proof needs at least one commitment.");
+    } // if
+    if ((indexes < 0) || (indexes >= commitment.size())) {
+      throw new IllegalArgumentException("Index " + indexes + " is not in a list of "
+          + commitment.size() + " commitments.");
+    } // if
+    this.commitments = Collections.unmodifiableList(new ArrayList<>(commitment));
+    this.index = indexes;
+  } // MergeProof(List<Hash>, int)
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Get the commitments of every block mined together.
+   *
+   * @return the commitments, in order.
+   */
+  public List<Hash> getCommitments() {
+    return this.commitments;
+  } // getCommitments()
+
+  /**
+   * Get the place of this block's commitment in the list.
+   *
+   * @return the index.
+   */
+  public int getIndex() {
+    return this.index;
+  } // getIndex()
+
+  /**
+   * Get a string representation of the proof.
+   *
+   * @return a string representation of the proof.
+   */
+  public String toString() {
+    return String.format("commitment %d of %d", this.index + 1, this.commitments.size());
+  } // toString()
+
+  /**
+   * Compute the commitment to a block header.
+   *
+   * @param headerPrefix The bytes of the header that come before the nonce.
+   * @param engine The engine whose algorithm we use.
+   * @return the digest of the header's bytes.
+   */
+  static Hash commitment(byte[] headerPrefix, DigestEngine engine) {
+    return new Hash(BlockHeader.messageDigest(engine).digest(headerPrefix));
+  } // commitment(byte[], DigestEngine)
+
+  /**
+   * Encode the merged header, without its nonce, after checking that it commits to a
+   * block header.
+   *
+   * @param headerPrefix The bytes of the block's header that come before the nonce.
+   * @param engine The engine that hashes the merged header.
+   * @return the bytes that come before the nonce in the merged header.
+   * @throws IllegalArgumentException if the proof does not hold the header's commitment.
+   */
+  byte[] prefix(byte[] headerPrefix, DigestEngine engine) {
+    if (!this.commitments.get(this.index).equals(commitment(headerPrefix, engine))) {
+      throw new IllegalArgumentException("Merge proof does not commit to the block.");
+    } // if
+    MessageDigest md = BlockHeader.messageDigest(engine);
+    for (Hash commitment : this.commitments) {
+      commitment.writeTo(md);
+    } // for
+    byte[] root = md.digest();
+    byte[] prefix = new byte[Integer.BYTES + root.length];
+    Sha256.putInt(prefix, 0, this.commitments.size());
+    System.arraycopy(root, 0, prefix, Integer.BYTES, root.length);
+    return prefix;
+  } // prefix(byte[], DigestEngine)
+} // class MergeProof
@@ -0,0 +1,169 @@
+package edu.grinnell.csc207.blockchains;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Mines the next block for several chains with one proof-of-work search. Each chain's
+ * pending block commits to its header, and the search runs over a merged header that
+ * holds every commitment (see {@link MergeProof}). A hash that one chain's validator
+ * accepts makes a block for that chain; chains whose validators are harder keep the
+ * search going from the next nonce, so the work for an easy chain is never repeated for
+ * a harder one. With N chains of the same difficulty, a round costs one search instead
+ * of N.
+ *
+ * <p>All the chains must use the same digest algorithm, since they share the hash. As
+ * with BlockChain.mine(), the blocks are returned, not appended.
+ *
+ * @author Moise Milenge
+ * @author Tiffany Yan
+ */
+public class MergedMiner {
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The miner that does the searching.
+   */
+  private final Miner miner;
+
+  /**
+   * The number of searches we have run.
+   */
+  private long searches;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a merged miner.
+   *
+   * @param miners The miner that does the searching.
+   * @throws IllegalArgumentException if the miner is null.
+   */
+  public MergedMiner(Miner miners) {
+    if (miners == null) {
+      throw new IllegalArgumentException("Miner cannot be null.");
+    } // if
+    this.miner = miners;
+  } // MergedMiner(Miner)
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Get the miner that does the searching.
+   *
+   * @return the miner.
+   */
+  public Miner getMiner() {
+    return this.miner;
+  } // getMiner()
+
+  /**
+   * Get the number of searches we have run, which is at most the number of blocks we
+   * have mined.
+   *
+   * @return the number of searches.
+   */
+  public synchronized long getSearches() {
+    return this.searches;
+  } // getSearches()
+
+  /**
+   * Mine a block for the end of each chain with one shared proof of work.
+   *
+   * @param chains The chains.
+   * @param ts The transaction for each chain, in the same order.
+   * @return the block for each chain, in the same order.
+   * @throws IllegalArgumentException if the lists are empty or have different sizes, if
+   *   the chains use different digest algorithms, or if a transaction is invalid.
+   */
+  public List<Block> mine(List<BlockChain> chains, List<Transaction> ts) {
+    if (chains.isEmpty() || (chains.size() != ts.size())) {
+      throw new IllegalArgumentException("Need one transaction for each of at least one chain.");
+    } // if
+    DigestEngine engine = chains.get(0).getEngine();
+    for (BlockChain chain : chains) {
+      if (!chain.getEngine().getAlgorithm().equals(engine.getAlgorithm())) {
+        throw new IllegalArgumentException("Chains that use " + engine.getAlgorithm()
+            + " and " + chain.getEngine().getAlgorithm() + " cannot be mined together.");
+      } // if
+    } // for
+
+    // Commit to each chain's pending block.
+    int n = chains.size();
+    List<BlockTemplate> plain = new ArrayList<>(n);
+    List<Hash> commitments = new ArrayList<>(n);
+    for (int i = 0; i < n; i++) {
+      BlockTemplate template = chains.get(i).templateAfter(ts.get(i), null);
+      plain.add(template);
+      commitments.add(MergeProof.commitment(template.prefix(), engine));
+    } // for
+    List<BlockTemplate> merged = new ArrayList<>(n);
+    for (int i = 0; i < n; i++) {
+      BlockTemplate template = plain.get(i);
+      merged.add(new BlockTemplate(template.number, template.transaction, template.prevHash,
+          engine, new MergeProof(commitments, i)));
+    } // for
+
+    // Search until every chain has a block.
+    Block[] blocks = new Block[n];
+    List<HashValidator> waiting = new ArrayList<>(n);
+    for (BlockChain chain : chains) {
+      waiting.add(chain.getValidator());
+    } // for
+    HashValidator any = new HashValidator() {
+      @Override
+      public boolean isValid(Hash hash) {
+        for (HashValidator check : waiting) {
+          if ((check != null) && check.isValid(hash)) {
+            return true;
+          } // if
+        } // for
+        return false;
+      } // isValid(Hash)
+
+      @Override
+      public boolean isValid(byte[] digest, int offset, int length) {
+        for (HashValidator check : waiting) {
+          if ((check != null) && check.isValid(digest, offset, length)) {
+            return true;
+          } // if
+        } // for
+        return false;
+      } // isValid(byte[], int, int)
+    };
+    int left = n;
+    long from = 1;
+    while (left > 0) {
+      long nonce = this.miner.searchFrom(merged.get(0), any, () -> false, from);
+      synchronized (this) {
+        this.searches++;
+      } // synchronized
+      Hash hash = merged.get(0).hash(nonce);
+      for (int i = 0; i < n; i++) {
+        if ((waiting.get(i) != null) && waiting.get(i).isValid(hash)) {
+          blocks[i] = merged.get(i).toBlock(nonce);
+          waiting.set(i, null);
+          left--;
+        } // if
+      } // for
+      from = nonce + 1;
+    } // while
+    return List.of(blocks);
+  } // mine(List<BlockChain>, List<Transaction>)
+
+  /**
+   * Get a string representation of the merged miner.
+   *
+   * @return a string representation of the merged miner.
+   */
+  public String toString() {
+    return "MergedMiner (" + getSearches() + " searches, " + this.miner.getThreads()
+        + " threads)";
+  } // toString()
+} // class MergedMiner
@@ -0,0 +1,634 @@
+package edu.grinnell.csc207.blockchains;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Searches for nonces on several threads at once. The nonce space is handed out to the
+ * worker threads in fixed-size chunks, and every worker stops as soon as one of them
+ * finds a nonce that the validator accepts. The blocks we build are ordinary blocks, so
+ * a chain accepts them exactly as it accepts blocks mined by the block constructor.
+ *
+ * @author Moise Milenge
+ * @author Tiffany Yan
+ */
+public class Miner {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The number of nonces a worker claims at a time.
+   */
+  static final long CHUNK_SIZE = 1L << 16;
+
+  /**
+   * Workers ask whether to stop once every STOP_CHECK_MASK + 1 nonces.
+   */
+  static final long STOP_CHECK_MASK = (1L << 10) - 1;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The number of worker threads used for each search.
+   */
+  private final int threads;
+
+  /**
+   * Whether each worker hashes several nonces at once.
+   */
+  private final boolean vectorized;
+
+  /**
+   * Running totals for our searches.
+   */
+  private final MiningStats stats = new MiningStats();
+
+  /**
+   * Whether we add our searches to our statistics.
+   */
+  private final boolean recording;
+
+  /**
+   * The things that want to hear about our searches.
+   */
+  private final List<MiningListener> listeners = new CopyOnWriteArrayList<>();
+
+  /**
+   * Where we save the progress of searches, if anywhere.
+   */
+  private volatile NonceCheckpoint checkpoint;
+
+  /**
+   * The nonces we found before, if we remember them.
+   */
+  private volatile NonceCache cache;
+
+  /**
+   * What limits how much of the processor our searches use, if anything.
+   */
+  private volatile MiningScheduler scheduler;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a miner that uses one worker per available processor.
+   */
+  public Miner() {
+    this(Runtime.getRuntime().availableProcessors());
+  } // Miner()
+
+  /**
+   * Create a miner that uses a fixed number of worker threads.
+   *
+   * @param workers The number of worker threads.
+   * @throws IllegalArgumentException if workers is not positive.
+   */
+  public Miner(int workers) {
+    this(workers, false);
+  } // Miner(int)
+
+  /**
+   * Create a miner that uses a fixed number of worker threads, each of which may hash
+   * several nonces at once with the processor's vector instructions. That needs the JVM
+   * to be started with --add-modules jdk.incubator.vector; without it, or on processors
+   * without wide enough vectors, the workers quietly hash one nonce at a time. Either way,
+   * the hashes are the same. Only SHA-256 blocks are hashed with vectors.
+   *
+   * @param workers The number of worker threads.
+   * @param vector Whether to use vector instructions when we can.
+   * @throws IllegalArgumentException if workers is not positive.
+   */
+  public Miner(int workers, boolean vector) {
+    this(workers, vector, true);
+  } // Miner(int, boolean)
+
+  /**
+   * Create a miner that may leave its statistics alone, for miners that nobody asks
+   * about. Listeners still hear about every search.
+   *
+   * @param workers The number of worker threads.
+   * @param vector Whether to use vector instructions when we can.
+   * @param records Whether to add our searches to the statistics from getStats().
+   * @throws IllegalArgumentException if workers is not positive.
+   */
+  Miner(int workers, boolean vector, boolean records) {
+    if (workers < 1) {
+      throw new IllegalArgumentException("A miner needs at least one worker.");
+    } // if
+    this.threads = workers;
+    this.vectorized = vector && BlockTemplate.lanesAvailable();
+    this.recording = records;
+  } // Miner(int, boolean, boolean)
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Get the number of worker threads used for each search.
+   *
+   * @return the number of worker threads.
+   */
+  public int getThreads() {
+    return this.threads;
+  } // getThreads()
+
+  /**
+   * Determine whether the workers hash several nonces at once.
+   *
+   * @return true if the workers use vector instructions.
+   */
+  public boolean isVectorized() {
+    return this.vectorized;
+  } // isVectorized()
+
+  /**
+   * Get the running totals for the searches this miner has run.
+   *
+   * @return the statistics, which keep changing as we mine (unless we were made not to
+   *   record them).
+   */
+  public MiningStats getStats() {
+    return this.stats;
+  } // getStats()
+
+  /**
+   * Save the progress of searches, so that a search for the same block that was
+   * cancelled or killed starts where it left off instead of at nonce 1.
+   *
+   * @param checkpoints Where to save the progress, or null to stop saving it.
+   */
+  public void setCheckpoint(NonceCheckpoint checkpoints) {
+    this.checkpoint = checkpoints;
+  } // setCheckpoint(NonceCheckpoint)
+
+  /**
+   * Get where we save the progress of searches.
+   *
+   * @return the checkpoint, or null if we do not save progress.
+   */
+  public NonceCheckpoint getCheckpoint() {
+    return this.checkpoint;
+  } // getCheckpoint()
+
+  /**
+   * Remember the nonces we find, so that mining the same block with the same validator
+   * again skips the search. Blocks found in the cache are not searches, so they do not
+   * count in the statistics and listeners do not hear about them.
+   *
+   * @param caches Where to remember nonces, or null to stop remembering them.
+   */
+  public void setNonceCache(NonceCache caches) {
+    this.cache = caches;
+  } // setNonceCache(NonceCache)
+
+  /**
+   * Get where we remember the nonces we find.
+   *
+   * @return the cache, or null if we do not remember nonces.
+   */
+  public NonceCache getNonceCache() {
+    return this.cache;
+  } // getNonceCache()
+
+  /**
+   * Limit how much of the processor our searches use. Searches that have already
+   * started keep the scheduler they started with.
+   *
+   * @param schedulers The scheduler, or null to mine flat out.
+   */
+  public void setScheduler(MiningScheduler schedulers) {
+    this.scheduler = schedulers;
+  } // setScheduler(MiningScheduler)
+
+  /**
+   * Get what limits how much of the processor our searches use.
+   *
+   * @return the scheduler, or null if we mine flat out.
+   */
+  public MiningScheduler getScheduler() {
+    return this.scheduler;
+  } // getScheduler()
+
+  /**
+   * Tell a listener about every search this miner finishes.
+   *
+   * @param listener The listener to add.
+   */
+  public void addListener(MiningListener listener) {
+    if (listener == null) {
+      throw new IllegalArgumentException("MiningListener cannot be null.");
+    } // if
+    this.listeners.add(listener);
+  } // addListener(MiningListener)
+
+  /**
+   * Stop telling a listener about searches.
+   *
+   * @param listener The listener to remove.
+   */
+  public void removeListener(MiningListener listener) {
+    this.listeners.remove(listener);
+  } // removeListener(MiningListener)
+
+  /**
+   * Mine a block with the given contents, choosing a nonce that meets the requirements
+   * of the validator.
+   *
+   * @param num The number of the block.
+   * @param t The transaction for the block.
+   * @param prevHash The hash of the previous block.
+   * @param check The validator used to check the block.
+   * @return a new block whose hash the validator accepts.
+   * @throws IllegalArgumentException if the transaction or validator is null.
+   */
+  public Block mine(int num, Transaction t, Hash prevHash, HashValidator check) {
+    return mine(num, t, prevHash, check, DigestEngine.SHA_256);
+  } // mine(int, Transaction, Hash, HashValidator)
+
+  /**
+   * Mine a block with the given contents, hashed by a particular engine, choosing a
+   * nonce that meets the requirements of the validator.
+   *
+   * @param num The number of the block.
+   * @param t The transaction for the block.
+   * @param prevHash The hash of the previous block.
+   * @param check The validator used to check the block.
+   * @param engine The engine that computes the hashes.
+   * @return a new block whose hash the validator accepts.
+   * @throws IllegalArgumentException if the transaction, validator, or engine is null.
+   */
+  public Block mine(int num, Transaction t, Hash prevHash, HashValidator check,
+      DigestEngine engine) {
+    if (t == null) {
+      throw new IllegalArgumentException("Transaction cannot be null.");
+    } // if
+    if (check == null) {
+      throw new IllegalArgumentException("HashValidator cannot be null.");
+    } // if
+    if (engine == null) {
+      throw new IllegalArgumentException("DigestEngine cannot be null.");
+    } // if
+    BlockTemplate template = new BlockTemplate(num, t, prevHash, engine);
+    return template.toBlock(search(template, check));
+  } // mine(int, Transaction, Hash, HashValidator, DigestEngine)
+
+  /**
+   * Find a nonce for a block template.
+   *
+   * @param template The block without its nonce.
+   * @param check The validator used to check the block.
+   * @return a nonce whose hash the validator accepts.
+   */
+  long search(BlockTemplate template, HashValidator check) {
+    return search(template, check, () -> false);
+  } // search(BlockTemplate, HashValidator)
+
+  /**
+   * Find a nonce for a block template, giving up if asked to. If we remember a nonce
+   * for the template and validator, we use it without searching.
+   *
+   * @param template The block without its nonce.
+   * @param check The validator used to check the block.
+   * @param stop Says whether to give up; workers ask every thousand or so nonces.
+   * @return a nonce whose hash the validator accepts.
+   * @throws CancellationException if we gave up before finding a nonce.
+   */
+  long search(BlockTemplate template, HashValidator check, BooleanSupplier stop) {
+    NonceCache found = this.cache;
+    if (found != null) {
+      Long nonce = found.get(template, check);
+      if ((nonce != null) && check.isValid(template.hash(nonce))) {
+        return nonce;
+      } // if
+    } // if
+    long nonce = searchFrom(template, check, stop, 1);
+    if (found != null) {
+      found.put(template, check, nonce);
+    } // if
+    return nonce;
+  } // search(BlockTemplate, HashValidator, BooleanSupplier)
+
+  /**
+   * Find a nonce for a block template, trying no nonce below a starting point and giving
+   * up if asked to. If we have a checkpoint, we skip to the template's watermark if it
+   * is further on, and save our progress as we go.
+   *
+   * @param template The block without its nonce.
+   * @param check The validator used to check the block.
+   * @param stop Says whether to give up; workers ask every thousand or so nonces.
+   * @param from The first nonce to try.
+   * @return a nonce whose hash the validator accepts.
+   * @throws CancellationException if we gave up before finding a nonce.
+   */
+  long searchFrom(BlockTemplate template, HashValidator check, BooleanSupplier stop,
+      long from) {
+    NonceCheckpoint saves = this.checkpoint;
+    long first = (saves == null) ? from : Math.max(from, saves.resume(template, check));
+    MiningScheduler pacing = this.scheduler;
+    int count = (pacing == null) ? this.threads : pacing.threads(this.threads);
+    Search search = new Search(template, check, stop, count,
+        this.vectorized && template.lanesApply(), saves, first, pacing);
+    long start = System.nanoTime();
+    if (count == 1) {
+      search.work(0);
+    } else {
+      Thread[] workers = new Thread[count];
+      for (int i = 0; i < workers.length; i++) {
+        int worker = i;
+        workers[i] = new Thread(() -> search.work(worker), "miner-" + i);
+        workers[i].setDaemon(true);
+        workers[i].start();
+      } // for
+      try {
+        for (Thread worker : workers) {
+          worker.join();
+        } // for
+      } catch (InterruptedException e) {
+        search.done.set(true);
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while mining.", e);
+      } // try/catch
+    } // if/else
+    long elapsed = System.nanoTime() - start;
+
+    if (saves != null) {
+      if (search.failure.get() == null && !search.cancelled.get()) {
+        saves.clear(template, check);
+      } else {
+        saves.save(template, check, search.watermark());
+      } // if/else
+    } // if
+    if (search.failure.get() != null) {
+      throw search.failure.get();
+    } // if
+    report(new MiningReport(template.number, search.winner.get(), !search.cancelled.get(),
+        search.attempts, elapsed));
+    if (search.cancelled.get()) {
+      throw new CancellationException("Mining was cancelled.");
+    } // if
+    return search.winner.get();
+  } // searchFrom(BlockTemplate, HashValidator, BooleanSupplier, long)
+
+  /**
+   * Tell our statistics and our listeners about a search.
+   *
+   * @param report What happened during the search.
+   */
+  private void report(MiningReport report) {
+    if (this.recording) {
+      this.stats.searchFinished(report);
+    } // if
+    for (MiningListener listener : this.listeners) {
+      listener.searchFinished(report);
+    } // for
+  } // report(MiningReport)
+
+  // +---------------+-----------------------------------------------
+  // | Inner classes |
+  // +---------------+
+
+  /**
+   * One search for a nonce, shared by all of the workers.
+   */
+  private static class Search {
+    /**
+     * The block we are mining, without its nonce.
+     */
+    final BlockTemplate template;
+
+    /**
+     * The validator used to check the block.
+     */
+    final HashValidator check;
+
+    /**
+     * Says whether to give up.
+     */
+    final BooleanSupplier stop;
+
+    /**
+     * The start of the next unclaimed chunk of nonces.
+     */
+    final AtomicLong next;
+
+    /**
+     * The start of the chunk each worker is searching. Every nonce below the smallest
+     * of these has been tried.
+     */
+    final AtomicLongArray bases;
+
+    /**
+     * Where we save our progress, or null.
+     */
+    final NonceCheckpoint saves;
+
+    /**
+     * When we last saved our progress, from System.nanoTime().
+     */
+    final AtomicLong saved = new AtomicLong(System.nanoTime());
+
+    /**
+     * Set once a worker finds a nonce (or fails).
+     */
+    final AtomicBoolean done = new AtomicBoolean(false);
+
+    /**
+     * Set if we gave up without finding a nonce.
+     */
+    final AtomicBoolean cancelled = new AtomicBoolean(false);
+
+    /**
+     * Tells resting workers to get up: some worker found a nonce or we were told to stop.
+     */
+    final BooleanSupplier over;
+
+    /**
+     * The nonce that was found.
+     */
+    final AtomicLong winner = new AtomicLong();
+
+    /**
+     * The first exception thrown by a worker, if any.
+     */
+    final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+
+    /**
+     * The number of hashes each worker computed, filled in as the workers finish.
+     */
+    final long[] attempts;
+
+    /**
+     * Whether the workers hash several nonces at once.
+     */
+    final boolean vectorized;
+
+    /**
+     * What keeps the workers to their share of the processor, or null.
+     */
+    final MiningScheduler pacing;
+
+    Search(BlockTemplate templates, HashValidator checks, BooleanSupplier stops, int workers,
+        boolean vector, NonceCheckpoint checkpoints, long first, MiningScheduler schedulers) {
+      this.template = templates;
+      this.check = checks;
+      this.stop = stops;
+      this.over = () -> this.done.get() || stops.getAsBoolean();
+      this.attempts = new long[workers];
+      this.vectorized = vector;
+      this.saves = checkpoints;
+      this.pacing = schedulers;
+      this.next = new AtomicLong(first);
+      this.bases = new AtomicLongArray(workers);
+      for (int i = 0; i < workers; i++) {
+        this.bases.set(i, first);
+      } // for
+    } // Search
+
+    /**
+     * Claim the next chunk of nonces for a worker, saving our progress if it is time.
+     *
+     * @param worker The index of the worker.
+     * @return the first nonce of the chunk.
+     */
+    long claim(int worker) {
+      long base = this.next.getAndAdd(CHUNK_SIZE);
+      this.bases.set(worker, base);
+      if (this.saves != null) {
+        long last = this.saved.get();
+        long now = System.nanoTime();
+        if ((now - last >= this.saves.getIntervalNanos())
+            && this.saved.compareAndSet(last, now)) {
+          this.saves.save(this.template, this.check, watermark());
+        } // if
+      } // if
+      return base;
+    } // claim(int)
+
+    /**
+     * Decide whether a worker should give up, after resting if its pacer says so. A
+     * worker that gives up because we were told to stop cancels the search.
+     *
+     * @param pacer The worker's pacer, or null.
+     * @return true if the search is over.
+     */
+    boolean stopped(MiningScheduler.Pacer pacer) {
+      if (!this.stop.getAsBoolean() && ((pacer == null) || !pacer.pace(this.over))) {
+        return false;
+      } // if
+      if (this.done.compareAndSet(false, true)) {
+        this.cancelled.set(true);
+      } // if
+      return true;
+    } // stopped(MiningScheduler.Pacer)
+
+    /**
+     * Find how far we have searched.
+     *
+     * @return a nonce such that every nonce below it has been tried.
+     */
+    long watermark() {
+      long min = Long.MAX_VALUE;
+      for (int i = 0; i < this.bases.length(); i++) {
+        min = Math.min(min, this.bases.get(i));
+      } // for
+      return min;
+    } // watermark()
+
+    /**
+     * Search until some worker finds a nonce or we give up.
+     *
+     * @param worker The index of this worker.
+     */
+    void work(int worker) {
+      if (this.vectorized) {
+        workLanes(worker);
+        return;
+      } // if
+      long tries = 0;
+      try {
+        DigestEngine.Hasher hasher = this.template.newHasher();
+        MiningScheduler.Pacer pacer = (this.pacing == null) ? null : this.pacing.new Pacer();
+        byte[] digest = new byte[this.template.engine.getDigestLength()];
+        while (!this.done.get()) {
+          long base = claim(worker);
+          for (long nonce = base; nonce < base + CHUNK_SIZE; nonce++) {
+            if (this.done.get()) {
+              return;
+            } // if
+            if (((nonce & STOP_CHECK_MASK) == 0) && stopped(pacer)) {
+              return;
+            } // if
+            hasher.hash(nonce, digest);
+            tries++;
+            if (this.check.isValid(digest, 0, digest.length)) {
+              if (this.done.compareAndSet(false, true)) {
+                this.winner.set(nonce);
+              } // if
+              return;
+            } // if
+          } // for
+        } // while
+      } catch (RuntimeException e) {
+        this.failure.compareAndSet(null, e);
+        this.done.set(true);
+      } finally {
+        this.attempts[worker] = tries;
+      } // try/catch/finally
+    } // work(int)
+
+    /**
+     * Search until some worker finds a nonce or we give up, hashing several nonces at
+     * once. Within each pass we check the lowest nonce first, so a single worker finds
+     * the same nonce as it does one nonce at a time.
+     *
+     * @param worker The index of this worker.
+     */
+    void workLanes(int worker) {
+      long tries = 0;
+      try {
+        Sha256Lanes lanes = this.template.newLanes();
+        MiningScheduler.Pacer pacer = (this.pacing == null) ? null : this.pacing.new Pacer();
+        int n = lanes.getLanes();
+        byte[] digests = new byte[n * Sha256.DIGEST_LENGTH];
+        while (!this.done.get()) {
+          long base = claim(worker);
+          for (long nonce = base; nonce < base + CHUNK_SIZE; nonce += n) {
+            if (this.done.get()) {
+              return;
+            } // if
+            if ((((nonce - base) & STOP_CHECK_MASK) == 0) && stopped(pacer)) {
+              return;
+            } // if
+            lanes.hash(nonce, digests);
+            tries += n;
+            for (int l = 0; l < n; l++) {
+              if (this.check.isValid(digests, l * Sha256.DIGEST_LENGTH, Sha256.DIGEST_LENGTH)) {
+                if (this.done.compareAndSet(false, true)) {
+                  this.winner.set(nonce + l);
+                } // if
+                return;
+              } // if
+            } // for
+          } // for
+        } // while
+      } catch (RuntimeException e) {
+        this.failure.compareAndSet(null, e);
+        this.done.set(true);
+      } finally {
+        this.attempts[worker] = tries;
+      } // try/catch/finally
+    } // workLanes(int)
+  } // class Search
+} // class Miner
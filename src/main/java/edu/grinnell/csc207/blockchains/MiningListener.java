@@ -0,0 +1,18 @@
+package edu.grinnell.csc207.blockchains;
+
+/**
+ * Things that want to hear about each search a miner runs.
+ *
+ * @author Moise Milenge
+ * @author Tiffany Yan
+ */
+public interface MiningListener {
+  /**
+   * Note that a search has finished, whether or not it found a nonce. Called on the
+   * thread that ran the search, so listeners should be quick and thread safe.
+   *
+   * @param report
+   *   What happened during the search.
+   */
+  void searchFinished(MiningReport report);
+} // interface MiningListener
@@ -0,0 +1,299 @@
+package edu.grinnell.csc207.blockchains;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Mines and appends a stream of transactions, one block each, in the order they were
+ * submitted. While one block is being appended, the next one is already being mined on
+ * top of it. If the chain does not end up where we expected (because the append
+ * failed or the difficulty changed), we throw the speculative work away and mine that
+ * block again.
+ *
+ * <p>All of the changes to the chain happen on the pipeline's own thread, so nothing
+ * else should change the chain while the pipeline is open.
+ *
+ * @author Moise Milenge
+ * @author Tiffany Yan
+ */
+public class MiningPipeline implements AutoCloseable {
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The chain we append to.
+   */
+  private final BlockChain chain;
+
+  /**
+   * Runs the mining, so that the pipeline thread is free to append.
+   */
+  private final ExecutorService mining;
+
+  /**
+   * The transactions waiting to be mined.
+   */
+  private final BlockingQueue<Job> queue = new LinkedBlockingQueue<>();
+
+  /**
+   * The thread that builds, mines, and appends the blocks.
+   */
+  private final Thread coordinator;
+
+  /**
+   * The number of blocks appended.
+   */
+  private final AtomicLong appended = new AtomicLong();
+
+  /**
+   * The number of blocks we started mining before their parent was appended.
+   */
+  private final AtomicLong speculated = new AtomicLong();
+
+  /**
+   * The number of speculative blocks we had to mine again.
+   */
+  private final AtomicLong restarts = new AtomicLong();
+
+  /**
+   * Set once we stop accepting transactions.
+   */
+  private volatile boolean closed;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a pipeline that appends to a chain, using the chain's miner.
+   *
+   * @param chains The chain to append to.
+   * @throws IllegalArgumentException if the chain is null.
+   */
+  public MiningPipeline(BlockChain chains) {
+    if (chains == null) {
+      throw new IllegalArgumentException("BlockChain cannot be null.");
+    } // if
+    this.chain = chains;
+    this.mining = Executors.newSingleThreadExecutor((r) -> {
+      Thread thread = new Thread(r, "pipeline-miner");
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.coordinator = new Thread(this::run, "pipeline");
+    this.coordinator.setDaemon(true);
+    this.coordinator.start();
+  } // MiningPipeline(BlockChain)
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Add a transaction to the end of the stream.
+   *
+   * @param t The transaction.
+   * @return a future that completes with the block once it is on the chain, or fails
+   *   if the transaction is invalid when its turn comes.
+   * @throws IllegalArgumentException if the transaction is null.
+   * @throws IllegalStateException if the pipeline is closed.
+   */
+  public CompletableFuture<Block> submit(Transaction t) {
+    if (t == null) {
+      throw new IllegalArgumentException("Transaction cannot be null.");
+    } // if
+    if (this.closed) {
+      throw new IllegalStateException("The pipeline is closed.");
+    } // if
+    Job job = new Job(t);
+    this.queue.add(job);
+    return job.result;
+  } // submit(Transaction)
+
+  /**
+   * Get the number of transactions waiting to be mined, not counting the ones being
+   * mined or appended.
+   *
+   * @return the number of waiting transactions.
+   */
+  public int getQueued() {
+    return this.queue.size();
+  } // getQueued()
+
+  /**
+   * Get the number of blocks the pipeline has appended.
+   *
+   * @return the number of blocks appended.
+   */
+  public long getAppended() {
+    return this.appended.get();
+  } // getAppended()
+
+  /**
+   * Get the number of blocks we started mining before their parent was on the chain.
+   *
+   * @return the number of speculative blocks.
+   */
+  public long getSpeculated() {
+    return this.speculated.get();
+  } // getSpeculated()
+
+  /**
+   * Get the number of speculative blocks we had to throw away and mine again.
+   *
+   * @return the number of restarts.
+   */
+  public long getRestarts() {
+    return this.restarts.get();
+  } // getRestarts()
+
+  /**
+   * Stop the pipeline. Transactions that are not yet on the chain fail with a
+   * CancellationException.
+   */
+  @Override
+  public void close() {
+    this.closed = true;
+    this.coordinator.interrupt();
+    try {
+      this.coordinator.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } // try/catch
+    this.mining.shutdownNow();
+  } // close()
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Mine and append transactions until we are closed. Whenever another transaction is
+   * waiting, we start mining it before appending the block we just mined.
+   */
+  private void run() {
+    Job pending = null;
+    CompletableFuture<Block> search = null;
+    List<Job> unfinished = new ArrayList<>();
+    try {
+      while (!Thread.currentThread().isInterrupted()) {
+        Job job = (pending == null) ? this.queue.take() : this.queue.poll();
+        if (job == null) {
+          append(pending);
+          unfinished.remove(pending);
+          pending = null;
+          continue;
+        } // if
+        unfinished.add(job);
+
+        BlockTemplate template;
+        try {
+          template = this.chain.templateAfter(job.transaction,
+              (pending == null) ? null : pending.block);
+        } catch (IllegalArgumentException e) {
+          job.result.completeExceptionally(e);
+          unfinished.remove(job);
+          continue;
+        } // try/catch
+        HashValidator check = this.chain.getValidator();
+        search = this.chain.mineAsync(template, check, null, this.mining);
+
+        if (pending != null) {
+          this.speculated.incrementAndGet();
+          append(pending);
+          unfinished.remove(pending);
+          pending = null;
+          if (!template.prevHash.equals(this.chain.getHash())
+              || !check.equals(this.chain.getValidator())) {
+            // We guessed wrong, so start again from the real end of the chain.
+            search.cancel(true);
+            this.restarts.incrementAndGet();
+            try {
+              template = this.chain.templateAfter(job.transaction, null);
+            } catch (IllegalArgumentException e) {
+              job.result.completeExceptionally(e);
+              unfinished.remove(job);
+              continue;
+            } // try/catch
+            search = this.chain.mineAsync(template, this.chain.getValidator(), null,
+                this.mining);
+          } // if
+        } // if
+
+        try {
+          job.block = search.get();
+          pending = job;
+        } catch (ExecutionException e) {
+          job.result.completeExceptionally(e.getCause());
+          unfinished.remove(job);
+        } // try/catch
+      } // while
+    } catch (InterruptedException e) {
+      // We were closed.
+    } catch (RuntimeException e) {
+      for (Job job : unfinished) {
+        job.result.completeExceptionally(e);
+      } // for
+    } finally {
+      if (search != null) {
+        search.cancel(true);
+      } // if
+      unfinished.addAll(this.queue);
+      for (Job job : unfinished) {
+        job.result.completeExceptionally(new CancellationException("Pipeline closed."));
+      } // for
+    } // try/catch/finally
+  } // run()
+
+  /**
+   * Append a mined block and tell whoever submitted its transaction.
+   *
+   * @param job The transaction and its block.
+   */
+  private void append(Job job) {
+    try {
+      this.chain.append(job.block);
+      this.appended.incrementAndGet();
+      job.result.complete(job.block);
+    } catch (RuntimeException e) {
+      job.result.completeExceptionally(e);
+    } // try/catch
+  } // append(Job)
+
+  // +---------------+-----------------------------------------------
+  // | Inner classes |
+  // +---------------+
+
+  /**
+   * A transaction that was submitted, and what became of it.
+   */
+  private static class Job {
+    /**
+     * The transaction.
+     */
+    final Transaction transaction;
+
+    /**
+     * Completes once the block is on the chain.
+     */
+    final CompletableFuture<Block> result = new CompletableFuture<>();
+
+    /**
+     * The block, once mined.
+     */
+    Block block;
+
+    Job(Transaction transactions) {
+      this.transaction = transactions;
+    } // Job(Transaction)
+  } // class Job
+} // class MiningPipeline
@@ -0,0 +1,244 @@
+package edu.grinnell.csc207.blockchains;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Accepts large batches of transactions and gets them onto a chain in order, without
+ * the caller having to mine, append, and repeat. Each transaction is checked when it is
+ * submitted against the balances the chain will have once everything before it in the
+ * queue is on the chain, so a bad transaction is turned away at once instead of when
+ * its turn to be mined comes. The blocks themselves are mined and appended by a
+ * {@link MiningPipeline}, so the next block is mined while the last one is appended,
+ * and the chain's miner decides how many cores each block gets.
+ *
+ * <p>As with the pipeline, nothing else should change the chain while the queue is
+ * open.
+ *
+ * @author Moise Milenge
+ * @author Tiffany Yan
+ */
+public class MiningQueue implements AutoCloseable {
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * Mines and appends the blocks.
+   */
+  private final MiningPipeline pipeline;
+
+  /**
+   * What each user's balance will be once every accepted transaction is on the chain.
+   * Users we have not seen have a balance of 0.
+   */
+  private final Map<String, Integer> projected = new HashMap<>();
+
+  /**
+   * The number of transactions accepted.
+   */
+  private final AtomicLong accepted = new AtomicLong();
+
+  /**
+   * The number of accepted transactions that are not yet on the chain or failed.
+   */
+  private final AtomicLong depth = new AtomicLong();
+
+  /**
+   * The number of accepted transactions that failed after all.
+   */
+  private final AtomicLong failed = new AtomicLong();
+
+  /**
+   * When the queue was opened, from System.nanoTime().
+   */
+  private final long start = System.nanoTime();
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a queue that appends to a chain, using the chain's miner.
+   *
+   * @param chain The chain to append to.
+   * @throws IllegalArgumentException if the chain is null.
+   */
+  public MiningQueue(BlockChain chain) {
+    if (chain == null) {
+      throw new IllegalArgumentException("BlockChain cannot be null.");
+    } // if
+    for (Transaction t : chain) {
+      move(t, 1);
+    } // for
+    this.pipeline = new MiningPipeline(chain);
+  } // MiningQueue(BlockChain)
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Add a transaction to the end of the queue.
+   *
+   * @param t The transaction.
+   * @return a future that completes with the block once it is on the chain.
+   * @throws IllegalArgumentException if the transaction is null or its source will not
+   *   have enough money once the transactions before it are on the chain.
+   * @throws IllegalStateException if the queue is closed.
+   */
+  public synchronized CompletableFuture<Block> submit(Transaction t) {
+    if (t == null) {
+      throw new IllegalArgumentException("Transaction cannot be null.");
+    } // if
+    if (!t.getSource().isEmpty() && (balance(t.getSource()) < t.getAmount())) {
+      throw new IllegalArgumentException("Insufficient balance for source: " + t.getSource());
+    } // if
+    CompletableFuture<Block> result = this.pipeline.submit(t);
+    move(t, 1);
+    this.accepted.incrementAndGet();
+    this.depth.incrementAndGet();
+    result.whenComplete((block, e) -> finished(t, e));
+    return result;
+  } // submit(Transaction)
+
+  /**
+   * Add many transactions to the end of the queue, in order. A transaction that is
+   * turned away does not stop the ones after it; its future has already failed.
+   *
+   * @param ts The transactions.
+   * @return a future for each transaction, in the same order.
+   * @throws IllegalStateException if the queue is closed.
+   */
+  public synchronized List<CompletableFuture<Block>> submitAll(Iterable<Transaction> ts) {
+    List<CompletableFuture<Block>> results = new ArrayList<>();
+    for (Transaction t : ts) {
+      try {
+        results.add(submit(t));
+      } catch (IllegalArgumentException e) {
+        results.add(CompletableFuture.failedFuture(e));
+      } // try/catch
+    } // for
+    return results;
+  } // submitAll(Iterable<Transaction>)
+
+  /**
+   * Find what a user's balance will be once every accepted transaction is on the chain.
+   *
+   * @param user The user.
+   * @return the projected balance.
+   */
+  public synchronized int balance(String user) {
+    return this.projected.getOrDefault(user, 0);
+  } // balance(String)
+
+  /**
+   * Get the number of accepted transactions that are not yet on the chain.
+   *
+   * @return the depth of the queue.
+   */
+  public long getDepth() {
+    return this.depth.get();
+  } // getDepth()
+
+  /**
+   * Get the number of transactions accepted.
+   *
+   * @return the number of transactions accepted.
+   */
+  public long getAccepted() {
+    return this.accepted.get();
+  } // getAccepted()
+
+  /**
+   * Get the number of blocks appended.
+   *
+   * @return the number of blocks appended.
+   */
+  public long getAppended() {
+    return this.pipeline.getAppended();
+  } // getAppended()
+
+  /**
+   * Get the number of accepted transactions that did not make it onto the chain.
+   *
+   * @return the number of failures.
+   */
+  public long getFailed() {
+    return this.failed.get();
+  } // getFailed()
+
+  /**
+   * Get the number of blocks appended per second since the queue was opened.
+   *
+   * @return the throughput, in blocks per second.
+   */
+  public double getBlocksPerSecond() {
+    long elapsed = System.nanoTime() - this.start;
+    return (elapsed <= 0) ? 0 : getAppended() * 1e9 / elapsed;
+  } // getBlocksPerSecond()
+
+  /**
+   * Get the pipeline that mines and appends the blocks.
+   *
+   * @return the pipeline.
+   */
+  public MiningPipeline getPipeline() {
+    return this.pipeline;
+  } // getPipeline()
+
+  /**
+   * Get a string representation of the queue.
+   *
+   * @return a string representation of the queue.
+   */
+  public String toString() {
+    return String.format("%d appended, %d queued, %d failed, %.1f blocks/s", getAppended(),
+        getDepth(), getFailed(), getBlocksPerSecond());
+  } // toString()
+
+  /**
+   * Stop the queue. Transactions that are not yet on the chain fail with a
+   * CancellationException.
+   */
+  @Override
+  public void close() {
+    this.pipeline.close();
+  } // close()
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Note that an accepted transaction is on the chain or failed. If it failed, the money
+   * it moved goes back.
+   *
+   * @param t The transaction.
+   * @param e Why it failed, or null if it is on the chain.
+   */
+  private synchronized void finished(Transaction t, Throwable e) {
+    this.depth.decrementAndGet();
+    if (e != null) {
+      this.failed.incrementAndGet();
+      move(t, -1);
+    } // if
+  } // finished(Transaction, Throwable)
+
+  /**
+   * Apply a transaction to the projected balances, or undo it.
+   *
+   * @param t The transaction.
+   * @param sign 1 to apply the transaction, -1 to undo it.
+   */
+  private void move(Transaction t, int sign) {
+    if (!t.getSource().isEmpty()) {
+      this.projected.merge(t.getSource(), -sign * t.getAmount(), Integer::sum);
+    } // if
+    this.projected.merge(t.getTarget(), sign * t.getAmount(), Integer::sum);
+  } // move(Transaction, int)
+} // class MiningQueue
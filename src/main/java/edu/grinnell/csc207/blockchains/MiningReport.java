@@ -0,0 +1,162 @@
+package edu.grinnell.csc207.blockchains;
+
+/**
+ * What happened during one search for a nonce.
+ *
+ * @author Moise Milenge
+ * @author Tiffany Yan
+ */
+public class MiningReport {
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The number of the block we mined.
+   */
+  private final int number;
+
+  /**
+   * The nonce we found, if we found one.
+   */
+  private final long nonce;
+
+  /**
+   * Whether we found a nonce.
+   */
+  private final boolean found;
+
+  /**
+   * The number of hashes each worker computed.
+   */
+  private final long[] attempts;
+
+  /**
+   * How long the search took, in nanoseconds.
+   */
+  private final long nanos;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a new report.
+   *
+   * @param num The number of the block we mined.
+   * @param nonces The nonce we found.
+   * @param founds Whether we found a nonce.
+   * @param attemptsPerWorker The number of hashes each worker computed.
+   * @param elapsed How long the search took, in nanoseconds.
+   */
+  MiningReport(int num, long nonces, boolean founds, long[] attemptsPerWorker, long elapsed) {
+    this.number = num;
+    this.nonce = nonces;
+    this.found = founds;
+    this.attempts = attemptsPerWorker.clone();
+    this.nanos = Math.max(elapsed, 1);
+  } // MiningReport(int, long, boolean, long[], long)
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Get the number of the block we mined.
+   *
+   * @return the block number.
+   */
+  public int getNum() {
+    return this.number;
+  } // getNum()
+
+  /**
+   * Determine whether the search found a nonce, rather than being cancelled.
+   *
+   * @return true if we found a nonce and false otherwise.
+   */
+  public boolean isFound() {
+    return this.found;
+  } // isFound()
+
+  /**
+   * Get the nonce we found.
+   *
+   * @return the nonce, or 0 if we did not find one.
+   */
+  public long getNonce() {
+    return this.nonce;
+  } // getNonce()
+
+  /**
+   * Get the number of workers that searched.
+   *
+   * @return the number of workers.
+   */
+  public int getThreads() {
+    return this.attempts.length;
+  } // getThreads()
+
+  /**
+   * Get the number of hashes computed by all of the workers together.
+   *
+   * @return the number of hashes.
+   */
+  public long getAttempts() {
+    long total = 0;
+    for (long a : this.attempts) {
+      total += a;
+    } // for
+    return total;
+  } // getAttempts()
+
+  /**
+   * Get the number of hashes computed by one worker.
+   *
+   * @param worker The index of the worker, between 0 (inclusive) and getThreads()
+   *   (exclusive).
+   * @return the number of hashes.
+   */
+  public long getAttempts(int worker) {
+    return this.attempts[worker];
+  } // getAttempts(int)
+
+  /**
+   * Get the wall time of the search.
+   *
+   * @return the time in nanoseconds.
+   */
+  public long getNanos() {
+    return this.nanos;
+  } // getNanos()
+
+  /**
+   * Get the number of hashes all of the workers computed per second.
+   *
+   * @return the hash rate.
+   */
+  public double getHashesPerSecond() {
+    return this.getAttempts() * 1e9 / this.nanos;
+  } // getHashesPerSecond()
+
+  /**
+   * Get the number of hashes one worker computed per second.
+   *
+   * @param worker The index of the worker.
+   * @return the hash rate of that worker.
+   */
+  public double getHashesPerSecond(int worker) {
+    return this.attempts[worker] * 1e9 / this.nanos;
+  } // getHashesPerSecond(int)
+
+  /**
+   * Get a string representation of the report.
+   *
+   * @return a string representation of the report.
+   */
+  public String toString() {
+    return String.format("Block %d: %s after %d hashes in %.1f ms (%.0f hashes/s, %d threads)",
+        this.number, this.found ? "nonce " + this.nonce : "cancelled", this.getAttempts(),
+        this.nanos / 1e6, this.getHashesPerSecond(), this.getThreads());
+  } // toString()
+} // class MiningReport
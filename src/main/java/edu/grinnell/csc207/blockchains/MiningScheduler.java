@@ -0,0 +1,293 @@
+package edu.grinnell.csc207.blockchains;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Keeps mining from taking over the processor, so that a node can mine and answer
+ * queries at the same time. A scheduler limits the number of worker threads a miner
+ * uses for each search, and has each worker mine in short slices, resting after each
+ * slice long enough that it is busy for only a share of the time. Work that should not
+ * wait for mining (looking up a balance or appending a block, say) marks itself
+ * urgent, and the workers rest until no urgent work is running.
+ *
+ * <p>Workers look at the scheduler once every thousand or so nonces, so slices much
+ * shorter than the time that takes (a fraction of a millisecond) are stretched to it.
+ * A miner with a scheduler uses about min(threads, maxThreads) * share processors.
+ *
+ * @author Moise Milenge
+ * @author Tiffany Yan
+ */
+public class MiningScheduler {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The length of a slice, unless we say otherwise.
+   */
+  public static final Duration DEFAULT_SLICE = Duration.ofMillis(2);
+
+  /**
+   * How long a worker rests before looking again for urgent work, in nanoseconds.
+   */
+  static final long URGENT_WAIT_NANOS = 50_000;
+
+  /**
+   * The longest a worker rests before looking at whether it should stop, in
+   * nanoseconds.
+   */
+  static final long STOP_WAIT_NANOS = 1_000_000;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The most worker threads a search may use.
+   */
+  private final int maxThreads;
+
+  /**
+   * The share of each slice a worker spends mining.
+   */
+  private final double share;
+
+  /**
+   * The length of a slice, in nanoseconds.
+   */
+  private final long sliceNanos;
+
+  /**
+   * The number of pieces of urgent work running now.
+   */
+  private final AtomicInteger urgent = new AtomicInteger();
+
+  /**
+   * The total time workers have spent resting, in nanoseconds.
+   */
+  private final AtomicLong rested = new AtomicLong();
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a scheduler with slices of DEFAULT_SLICE.
+   *
+   * @param threads The most worker threads a search may use.
+   * @param shares The share of the time each worker spends mining, above 0 and at most 1.
+   * @throws IllegalArgumentException if threads is not positive or the share is out of
+   *   range.
+   */
+  public MiningScheduler(int threads, double shares) {
+    this(threads, shares, DEFAULT_SLICE);
+  } // MiningScheduler(int, double)
+
+  /**
+   * Create a scheduler.
+   *
+   * @param threads The most worker threads a search may use.
+   * @param shares The share of the time each worker spends mining, above 0 and at most 1.
+   * @param slice How long a worker mines before it rests.
+   * @throws IllegalArgumentException if threads is not positive, the share is out of
+   *   range, or the slice is not positive.
+   */
+  public MiningScheduler(int threads, double shares, Duration slice) {
+    if (threads < 1) {
+      throw new IllegalArgumentException("A scheduler must allow at least one thread.");
+    } // if
+    if (!(shares > 0) || (shares > 1)) {
+      throw new IllegalArgumentException("The share must be above 0 and at most 1, not "
+          + shares + ".");
+    } // if
+    if (slice.isNegative() || slice.isZero()) {
+      throw new IllegalArgumentException("The slice must be positive.");
+    } // if
+    this.maxThreads = threads;
+    this.share = shares;
+    this.sliceNanos = slice.toNanos();
+  } // MiningScheduler(int, double, Duration)
+
+  // +----------------+----------------------------------------------
+  // | Static methods |
+  // +----------------+
+
+  /**
+   * Create a scheduler that lets mining use about a percentage of the machine's
+   * processors, using as many threads as it can at full speed and slowing down only the
+   * last one.
+   *
+   * @param percent The percentage of the processors, from 1 to 100.
+   * @return the scheduler.
+   * @throws IllegalArgumentException if the percentage is out of range.
+   */
+  public static MiningScheduler ofMachine(int percent) {
+    if ((percent < 1) || (percent > 100)) {
+      throw new IllegalArgumentException("The percentage must be from 1 to 100, not "
+          + percent + ".");
+    } // if
+    double cores = Runtime.getRuntime().availableProcessors() * percent / 100.0;
+    int threads = Math.max(1, (int) Math.ceil(cores));
+    return new MiningScheduler(threads, Math.min(1, cores / threads));
+  } // ofMachine(int)
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Get the most worker threads a search may use.
+   *
+   * @return the number of threads.
+   */
+  public int getMaxThreads() {
+    return this.maxThreads;
+  } // getMaxThreads()
+
+  /**
+   * Get the share of the time each worker spends mining.
+   *
+   * @return the share, above 0 and at most 1.
+   */
+  public double getShare() {
+    return this.share;
+  } // getShare()
+
+  /**
+   * Get how long a worker mines before it rests.
+   *
+   * @return the length of a slice.
+   */
+  public Duration getSlice() {
+    return Duration.ofNanos(this.sliceNanos);
+  } // getSlice()
+
+  /**
+   * Get the total time workers have spent resting, whether to keep to their share or
+   * to let urgent work run.
+   *
+   * @return the time spent resting.
+   */
+  public Duration getRested() {
+    return Duration.ofNanos(this.rested.get());
+  } // getRested()
+
+  /**
+   * Determine whether urgent work is running.
+   *
+   * @return true if some urgent work has begun and not ended.
+   */
+  public boolean isUrgent() {
+    return this.urgent.get() > 0;
+  } // isUrgent()
+
+  /**
+   * Note that urgent work has begun. Workers rest until it ends, so every call must be
+   * followed by a call to endUrgent(), in a finally block.
+   */
+  public void beginUrgent() {
+    this.urgent.incrementAndGet();
+  } // beginUrgent()
+
+  /**
+   * Note that urgent work has ended.
+   *
+   * @throws IllegalStateException if no urgent work has begun.
+   */
+  public void endUrgent() {
+    if (this.urgent.getAndDecrement() <= 0) {
+      this.urgent.incrementAndGet();
+      throw new IllegalStateException("No urgent work has begun.");
+    } // if
+  } // endUrgent()
+
+  /**
+   * Find how many worker threads a search may use.
+   *
+   * @param threads The number of threads the miner would like to use.
+   * @return the number of threads it may use.
+   */
+  int threads(int threads) {
+    return Math.min(threads, this.maxThreads);
+  } // threads(int)
+
+  /**
+   * Get a string representation of the scheduler.
+   *
+   * @return a string representation of the scheduler.
+   */
+  public String toString() {
+    return String.format("at most %d threads, %.0f%% of each %.1f ms slice", this.maxThreads,
+        this.share * 100, this.sliceNanos / 1e6);
+  } // toString()
+
+  // +---------------+-----------------------------------------------
+  // | Inner classes |
+  // +---------------+
+
+  /**
+   * Keeps one worker to its share. Each worker has a pacer of its own.
+   */
+  class Pacer {
+    /**
+     * When the current slice began, from System.nanoTime().
+     */
+    private long start = System.nanoTime();
+
+    /**
+     * Rest if urgent work is running or the slice is over, but no longer than it takes
+     * to notice that we should stop. Workers call this every thousand or so nonces.
+     *
+     * @param stop Tells us to stop resting and give up.
+     * @return true if we stopped resting because stop fired.
+     */
+    boolean pace(BooleanSupplier stop) {
+      long now = System.nanoTime();
+      long busy = now - this.start;
+      long rest = 0;
+      boolean stopped = false;
+      if (busy >= MiningScheduler.this.sliceNanos) {
+        double s = MiningScheduler.this.share;
+        if (s < 1) {
+          stopped = rest((long) (busy * (1 - s) / s), stop);
+        } // if
+        now = System.nanoTime();
+        rest = now - this.start - busy;
+        this.start = now;
+      } // if
+      while (!stopped && (MiningScheduler.this.urgent.get() > 0)) {
+        LockSupport.parkNanos(URGENT_WAIT_NANOS);
+        stopped = stop.getAsBoolean();
+      } // while
+      long end = System.nanoTime();
+      rest += end - now;
+      if (rest > 0) {
+        MiningScheduler.this.rested.addAndGet(rest);
+        this.start += end - now;
+      } // if
+      return stopped;
+    } // pace(BooleanSupplier)
+
+    /**
+     * Rest for a while, in pieces of at most STOP_WAIT_NANOS.
+     *
+     * @param nanos How long to rest, in nanoseconds.
+     * @param stop Tells us to stop resting.
+     * @return true if we stopped early because stop fired.
+     */
+    private boolean rest(long nanos, BooleanSupplier stop) {
+      long end = System.nanoTime() + nanos;
+      for (long left = nanos; left > 0; left = end - System.nanoTime()) {
+        if (stop.getAsBoolean()) {
+          return true;
+        } // if
+        LockSupport.parkNanos(Math.min(left, STOP_WAIT_NANOS));
+      } // for
+      return false;
+    } // rest(long, BooleanSupplier)
+  } // class Pacer
+} // class MiningScheduler
@@ -0,0 +1,172 @@
+package edu.grinnell.csc207.blockchains;
+
+/**
+ * Running totals for the searches a miner has run. Each miner keeps one, and it can
+ * also be added as a listener to other miners to combine their numbers.
+ *
+ * @author Moise Milenge
+ * @author Tiffany Yan
+ */
+public class MiningStats implements MiningListener {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The number of buckets in the histogram of attempts per block.
+   */
+  public static final int BUCKETS = Long.SIZE;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The number of searches that found a nonce.
+   */
+  private long blocks;
+
+  /**
+   * The number of searches that were cancelled.
+   */
+  private long cancelled;
+
+  /**
+   * The number of hashes computed.
+   */
+  private long attempts;
+
+  /**
+   * The total wall time of all of the searches, in nanoseconds.
+   */
+  private long nanos;
+
+  /**
+   * The total time all of the workers spent searching, in nanoseconds.
+   */
+  private long threadNanos;
+
+  /**
+   * Bucket i counts the blocks that took between 2^i (inclusive) and 2^(i+1)
+   * (exclusive) attempts.
+   */
+  private final long[] histogram = new long[BUCKETS];
+
+  /**
+   * The most recent report.
+   */
+  private MiningReport last;
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  @Override
+  public synchronized void searchFinished(MiningReport report) {
+    long tries = report.getAttempts();
+    this.attempts += tries;
+    this.nanos += report.getNanos();
+    this.threadNanos += report.getNanos() * report.getThreads();
+    if (report.isFound()) {
+      this.blocks++;
+      this.histogram[bucket(tries)]++;
+    } else {
+      this.cancelled++;
+    } // if/else
+    this.last = report;
+  } // searchFinished(MiningReport)
+
+  /**
+   * Get the number of blocks mined.
+   *
+   * @return the number of searches that found a nonce.
+   */
+  public synchronized long getBlocks() {
+    return this.blocks;
+  } // getBlocks()
+
+  /**
+   * Get the number of searches that gave up.
+   *
+   * @return the number of cancelled searches.
+   */
+  public synchronized long getCancelled() {
+    return this.cancelled;
+  } // getCancelled()
+
+  /**
+   * Get the number of hashes computed.
+   *
+   * @return the number of hashes.
+   */
+  public synchronized long getAttempts() {
+    return this.attempts;
+  } // getAttempts()
+
+  /**
+   * Get the total wall time spent searching.
+   *
+   * @return the time in nanoseconds.
+   */
+  public synchronized long getNanos() {
+    return this.nanos;
+  } // getNanos()
+
+  /**
+   * Get the number of hashes computed per second of searching.
+   *
+   * @return the hash rate, or 0 if we have not searched.
+   */
+  public synchronized double getHashesPerSecond() {
+    return (this.nanos == 0) ? 0 : this.attempts * 1e9 / this.nanos;
+  } // getHashesPerSecond()
+
+  /**
+   * Get the average number of hashes each worker computed per second.
+   *
+   * @return the hash rate per thread, or 0 if we have not searched.
+   */
+  public synchronized double getHashesPerSecondPerThread() {
+    return (this.threadNanos == 0) ? 0 : this.attempts * 1e9 / this.threadNanos;
+  } // getHashesPerSecondPerThread()
+
+  /**
+   * Get the histogram of attempts per block. Bucket i counts the blocks that took
+   * between 2^i (inclusive) and 2^(i+1) (exclusive) attempts.
+   *
+   * @return a copy of the histogram.
+   */
+  public synchronized long[] getAttemptHistogram() {
+    return this.histogram.clone();
+  } // getAttemptHistogram()
+
+  /**
+   * Get the report for the most recent search.
+   *
+   * @return the most recent report, or null if we have not searched.
+   */
+  public synchronized MiningReport getLast() {
+    return this.last;
+  } // getLast()
+
+  /**
+   * Get a string representation of the statistics.
+   *
+   * @return a string representation of the statistics.
+   */
+  public synchronized String toString() {
+    return String.format("%d blocks (%d cancelled), %d hashes in %.1f s, "
+        + "%.0f hashes/s (%.0f per thread)", this.blocks, this.cancelled, this.attempts,
+        this.nanos / 1e9, this.getHashesPerSecond(), this.getHashesPerSecondPerThread());
+  } // toString()
+
+  /**
+   * Find the histogram bucket for a number of attempts.
+   *
+   * @param tries The number of attempts, which must be positive.
+   * @return the index of the bucket.
+   */
+  static int bucket(long tries) {
+    return Long.SIZE - 1 - Long.numberOfLeadingZeros(Math.max(tries, 1));
+  } // bucket(long)
+} // class MiningStats
@@ -0,0 +1,211 @@
+package edu.grinnell.csc207.blockchains;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Remembers the nonces a miner has found, so that mining the same block again (after
+ * removing it from a chain, say) does not repeat the search. A block is identified by
+ * its template (the bytes hashed before the nonce, which cover the number, the
+ * transaction, and the previous hash, together with the digest algorithm) and by the
+ * validator. Validators are told apart with equals(), so two DifficultyValidators with
+ * the same target share entries, while each lambda has entries of its own.
+ *
+ * <p>We keep the most recently used entries, up to a capacity. Miners hash a cached
+ * nonce once and check it before using it, so a validator that changes its mind costs
+ * a search, not a wrong block.
+ *
+ * @author Moise Milenge
+ * @author Tiffany Yan
+ */
+public class NonceCache {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The number of nonces we remember by default.
+   */
+  public static final int DEFAULT_CAPACITY = 1024;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The number of nonces we remember.
+   */
+  private final int capacity;
+
+  /**
+   * The nonces, least recently used first.
+   */
+  private final Map<Key, Long> nonces = new LinkedHashMap<>(16, 0.75f, true);
+
+  /**
+   * The number of lookups that found a nonce.
+   */
+  private long hits;
+
+  /**
+   * The number of lookups that did not.
+   */
+  private long misses;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a cache that remembers DEFAULT_CAPACITY nonces.
+   */
+  public NonceCache() {
+    this(DEFAULT_CAPACITY);
+  } // NonceCache()
+
+  /**
+   * Create a cache that remembers a number of nonces.
+   *
+   * @param capacities The number of nonces to remember.
+   * @throws IllegalArgumentException if the capacity is not positive.
+   */
+  public NonceCache(int capacities) {
+    if (capacities < 1) {
+      throw new IllegalArgumentException("A nonce cache needs room for at least one nonce.");
+    } // if
+    this.capacity = capacities;
+  } // NonceCache(int)
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Get the number of nonces we remember at most.
+   *
+   * @return the capacity.
+   */
+  public int getCapacity() {
+    return this.capacity;
+  } // getCapacity()
+
+  /**
+   * Get the number of nonces we remember now.
+   *
+   * @return the number of entries.
+   */
+  public synchronized int size() {
+    return this.nonces.size();
+  } // size()
+
+  /**
+   * Get the number of lookups that found a nonce.
+   *
+   * @return the number of hits.
+   */
+  public synchronized long getHits() {
+    return this.hits;
+  } // getHits()
+
+  /**
+   * Get the number of lookups that did not find a nonce.
+   *
+   * @return the number of misses.
+   */
+  public synchronized long getMisses() {
+    return this.misses;
+  } // getMisses()
+
+  /**
+   * Forget every nonce.
+   */
+  public synchronized void clear() {
+    this.nonces.clear();
+  } // clear()
+
+  /**
+   * Find the nonce we found before for a template and validator.
+   *
+   * @param template The block without its nonce.
+   * @param check The validator.
+   * @return the nonce, or null if we have not seen the pair.
+   */
+  synchronized Long get(BlockTemplate template, HashValidator check) {
+    Long nonce = this.nonces.get(new Key(template, check));
+    if (nonce == null) {
+      this.misses++;
+    } else {
+      this.hits++;
+    } // if/else
+    return nonce;
+  } // get(BlockTemplate, HashValidator)
+
+  /**
+   * Remember the nonce found for a template and validator.
+   *
+   * @param template The block without its nonce.
+   * @param check The validator.
+   * @param nonce The nonce.
+   */
+  synchronized void put(BlockTemplate template, HashValidator check, long nonce) {
+    this.nonces.put(new Key(template, check), nonce);
+    while (this.nonces.size() > this.capacity) {
+      this.nonces.remove(this.nonces.keySet().iterator().next());
+    } // while
+  } // put(BlockTemplate, HashValidator, long)
+
+  /**
+   * Get a string representation of the cache.
+   *
+   * @return a string representation of the cache.
+   */
+  public synchronized String toString() {
+    return String.format("%d of %d nonces cached, %d hits, %d misses", this.nonces.size(),
+        this.capacity, this.hits, this.misses);
+  } // toString()
+
+  // +---------------+-----------------------------------------------
+  // | Inner classes |
+  // +---------------+
+
+  /**
+   * A template and a validator.
+   */
+  private static final class Key {
+    /**
+     * The digest algorithm.
+     */
+    final String algorithm;
+
+    /**
+     * The bytes hashed before the nonce.
+     */
+    final byte[] prefix;
+
+    /**
+     * The validator.
+     */
+    final HashValidator check;
+
+    Key(BlockTemplate template, HashValidator checks) {
+      this.algorithm = template.engine.getAlgorithm();
+      this.prefix = template.prefix();
+      this.check = checks;
+    } // Key(BlockTemplate, HashValidator)
+
+    @Override
+    public boolean equals(Object other) {
+      return (other instanceof Key)
+          && this.algorithm.equals(((Key) other).algorithm)
+          && Arrays.equals(this.prefix, ((Key) other).prefix)
+          && this.check.equals(((Key) other).check);
+    } // equals(Object)
+
+    @Override
+    public int hashCode() {
+      return (31 * this.algorithm.hashCode() + Arrays.hashCode(this.prefix)) * 31
+          + this.check.hashCode();
+    } // hashCode()
+  } // class Key
+} // class NonceCache
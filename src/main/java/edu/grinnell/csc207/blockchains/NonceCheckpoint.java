@@ -0,0 +1,264 @@
+package edu.grinnell.csc207.blockchains;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A small file that remembers how far searches have got, so that a search that was
+ * cancelled or killed can pick up where it left off. For each block template, we store
+ * a watermark: every nonce below it has been tried, and none of them worked.
+ *
+ * <p>Templates are identified by the digest of the bytes hashed before the nonce, which
+ * cover the block number, the transaction, and the previous hash, together with the
+ * digest algorithm and the validator, since a watermark says nothing about nonces an
+ * easier validator would accept. A DifficultyValidator is identified by its target, so
+ * its watermarks go in the file and survive a restart. Other validators cannot be
+ * recognized after a restart, so we keep their watermarks in memory only, keyed by the
+ * validator itself (compared with equals).
+ *
+ * <p>Each line of the file holds a key and a watermark. We keep the most recently used
+ * MAX_ENTRIES templates and replace the file atomically when it changes. Searches save
+ * from their worker threads, so a failed write (say, on a full disk) does not stop
+ * them: we keep the watermarks in memory and remember the error for getWriteFailure().
+ *
+ * @author Moise Milenge
+ * @author Tiffany Yan
+ */
+public class NonceCheckpoint {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The number of templates we remember.
+   */
+  static final int MAX_ENTRIES = 64;
+
+  /**
+   * How often searches save their progress by default.
+   */
+  static final Duration DEFAULT_INTERVAL = Duration.ofSeconds(1);
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The file we keep the watermarks in.
+   */
+  private final Path file;
+
+  /**
+   * How often searches save their progress, in nanoseconds.
+   */
+  private final long intervalNanos;
+
+  /**
+   * The watermarks, by key, least recently used first. Keys that are strings go in the
+   * file; the others are lists of a template key and a validator.
+   */
+  private final Map<Object, Long> watermarks = new LinkedHashMap<>(16, 0.75f, true);
+
+  /**
+   * Why we last failed to write the file, or null if the last write worked.
+   */
+  private IOException writeFailure;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Use a checkpoint file, saving progress once a second.
+   *
+   * @param files The file, which need not exist yet.
+   * @throws UncheckedIOException if the file exists but cannot be read.
+   */
+  public NonceCheckpoint(Path files) {
+    this(files, DEFAULT_INTERVAL);
+  } // NonceCheckpoint(Path)
+
+  /**
+   * Use a checkpoint file.
+   *
+   * @param files The file, which need not exist yet.
+   * @param interval How often searches save their progress.
+   * @throws IllegalArgumentException if the interval is negative.
+   * @throws UncheckedIOException if the file exists but cannot be read.
+   */
+  public NonceCheckpoint(Path files, Duration interval) {
+    if (interval.isNegative()) {
+      throw new IllegalArgumentException("Checkpoint interval cannot be negative.");
+    } // if
+    this.file = files;
+    this.intervalNanos = interval.toNanos();
+    if (Files.exists(files)) {
+      try {
+        for (String line : Files.readAllLines(files, StandardCharsets.US_ASCII)) {
+          String[] fields = line.trim().split(" ");
+          if (fields.length == 2) {
+            this.watermarks.put(fields[0], Long.parseLong(fields[1]));
+          } // if
+        } // for
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      } // try/catch
+    } // if
+  } // NonceCheckpoint(Path, Duration)
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Get the file we keep the watermarks in.
+   *
+   * @return the file.
+   */
+  public Path getFile() {
+    return this.file;
+  } // getFile()
+
+  /**
+   * Get the number of templates we remember.
+   *
+   * @return the number of watermarks.
+   */
+  public synchronized int size() {
+    return this.watermarks.size();
+  } // size()
+
+  /**
+   * Find out why we last failed to write the file.
+   *
+   * @return the error, or null if the last write worked (or there has been none).
+   */
+  public synchronized IOException getWriteFailure() {
+    return this.writeFailure;
+  } // getWriteFailure()
+
+  /**
+   * Get how often searches save their progress.
+   *
+   * @return the interval, in nanoseconds.
+   */
+  long getIntervalNanos() {
+    return this.intervalNanos;
+  } // getIntervalNanos()
+
+  /**
+   * Find where a search for a template should start.
+   *
+   * @param template The block without its nonce.
+   * @param check The validator the search uses.
+   * @return the watermark for the template, or 1 if we have not searched it before.
+   */
+  synchronized long resume(BlockTemplate template, HashValidator check) {
+    Long watermark = this.watermarks.get(key(template, check));
+    return (watermark == null) ? 1 : watermark;
+  } // resume(BlockTemplate, HashValidator)
+
+  /**
+   * Remember that every nonce below a watermark has been tried for a template.
+   *
+   * @param template The block without its nonce.
+   * @param check The validator the search uses.
+   * @param watermark The lowest nonce that may not have been tried.
+   */
+  synchronized void save(BlockTemplate template, HashValidator check, long watermark) {
+    Object key = key(template, check);
+    Long old = this.watermarks.get(key);
+    if ((old == null) || (old < watermark)) {
+      this.watermarks.put(key, watermark);
+      boolean changed = key instanceof String;
+      while (this.watermarks.size() > MAX_ENTRIES) {
+        Object eldest = this.watermarks.keySet().iterator().next();
+        this.watermarks.remove(eldest);
+        changed |= eldest instanceof String;
+      } // while
+      if (changed) {
+        write();
+      } // if
+    } // if
+  } // save(BlockTemplate, HashValidator, long)
+
+  /**
+   * Forget a template, once a search for it has succeeded.
+   *
+   * @param template The block without its nonce.
+   * @param check The validator the search used.
+   */
+  synchronized void clear(BlockTemplate template, HashValidator check) {
+    Object key = key(template, check);
+    if ((this.watermarks.remove(key) != null) && (key instanceof String)) {
+      write();
+    } // if
+  } // clear(BlockTemplate, HashValidator)
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Replace the file with the current watermarks, or remember why we could not.
+   */
+  private void write() {
+    List<String> lines = new ArrayList<>();
+    for (Map.Entry<Object, Long> entry : this.watermarks.entrySet()) {
+      if (entry.getKey() instanceof String) {
+        lines.add(entry.getKey() + " " + entry.getValue());
+      } // if
+    } // for
+    Path temp = null;
+    try {
+      Path dir = this.file.toAbsolutePath().getParent();
+      temp = Files.createTempFile(dir, this.file.getFileName().toString(), ".tmp");
+      Files.write(temp, lines, StandardCharsets.US_ASCII);
+      Files.move(temp, this.file, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+      this.writeFailure = null;
+    } catch (IOException e) {
+      this.writeFailure = e;
+      if (temp != null) {
+        try {
+          Files.deleteIfExists(temp);
+        } catch (IOException again) {
+          // The write already failed; a stray temporary file is the lesser problem.
+        } // try/catch
+      } // if
+    } // try/catch
+  } // write()
+
+  /**
+   * Identify a template and a validator.
+   *
+   * @param template The block without its nonce.
+   * @param check The validator.
+   * @return for a DifficultyValidator, a string of the algorithm, the hex SHA-256 digest
+   *   of the template's prefix, and the target; for other validators, a list of that
+   *   string without the target and the validator.
+   */
+  private static Object key(BlockTemplate template, HashValidator check) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256").digest(template.prefix());
+      String key = template.engine.getAlgorithm() + ":" + new Hash(digest);
+      if (check instanceof DifficultyValidator) {
+        return key + ":" + ((DifficultyValidator) check).getTarget();
+      } // if
+      return List.of(key, check);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 algorithm not found.", e);
+    } // try/catch
+  } // key(BlockTemplate, HashValidator)
+} // class NonceCheckpoint
@@ -0,0 +1,445 @@
+package edu.grinnell.csc207.blockchains;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Coordinates a mining pool on the loopback interface. Workers (see PoolWorker), which
+ * may run in other JVMs, connect to our port, and we hand each of them ranges of
+ * nonces for the block we are mining. Workers report shares, which are nonces that meet
+ * an easier target and show how much work each worker is doing, and the nonce that
+ * meets the real target, which we check before building the block.
+ *
+ * <p>Workers can only check difficulty targets, so the pool only mines for chains
+ * whose validator is a DifficultyValidator.
+ *
+ * @author Moise Milenge
+ * @author Tiffany Yan
+ */
+public class PoolCoordinator implements AutoCloseable {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The default number of nonces in each range we hand out.
+   */
+  static final long DEFAULT_RANGE = 1L << 20;
+
+  /**
+   * How often we ask whether to give up while we wait for the workers, in milliseconds.
+   */
+  static final long STOP_POLL_MILLIS = 10;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * Where workers connect.
+   */
+  private final ServerSocket server;
+
+  /**
+   * The target shares must meet.
+   */
+  private final DifficultyValidator shareTarget;
+
+  /**
+   * The number of nonces in each range we hand out.
+   */
+  private final long range;
+
+  /**
+   * The workers that are connected.
+   */
+  private final List<Connection> connections = new CopyOnWriteArrayList<>();
+
+  /**
+   * The numbers we give jobs.
+   */
+  private final AtomicLong jobs = new AtomicLong();
+
+  /**
+   * The job we are working on, if any.
+   */
+  private volatile Job current;
+
+  /**
+   * Set once we close.
+   */
+  private volatile boolean closed;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Start a coordinator on a free loopback port.
+   *
+   * @param shares The number of leading zero bits a hash needs to count as a share.
+   * @throws IOException if we cannot listen on the loopback interface.
+   */
+  public PoolCoordinator(int shares) throws IOException {
+    this(shares, DEFAULT_RANGE);
+  } // PoolCoordinator(int)
+
+  /**
+   * Start a coordinator on a free loopback port.
+   *
+   * @param shares The number of leading zero bits a hash needs to count as a share.
+   * @param ranges The number of nonces to hand a worker at a time.
+   * @throws IOException if we cannot listen on the loopback interface.
+   * @throws IllegalArgumentException if the share bits are not between 0 and 256, or the
+   *   range is not positive.
+   */
+  public PoolCoordinator(int shares, long ranges) throws IOException {
+    if (ranges < 1) {
+      throw new IllegalArgumentException("Ranges must hold at least one nonce.");
+    } // if
+    this.shareTarget = new DifficultyValidator(shares);
+    this.range = ranges;
+    this.server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+    Thread acceptor = new Thread(this::accept, "pool-acceptor");
+    acceptor.setDaemon(true);
+    acceptor.start();
+  } // PoolCoordinator(int, long)
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Get the port workers should connect to.
+   *
+   * @return the port on the loopback interface.
+   */
+  public int getPort() {
+    return this.server.getLocalPort();
+  } // getPort()
+
+  /**
+   * Get the number of connected workers.
+   *
+   * @return the number of workers.
+   */
+  public int getWorkers() {
+    return this.connections.size();
+  } // getWorkers()
+
+  /**
+   * Get the number of shares each worker has found.
+   *
+   * @return the shares, by worker name.
+   */
+  public Map<String, Long> getShares() {
+    Map<String, Long> shares = new TreeMap<>();
+    for (Connection connection : this.connections) {
+      shares.merge(connection.name, connection.shares.get(), Long::sum);
+    } // for
+    return shares;
+  } // getShares()
+
+  /**
+   * Mine the block for a transaction at the end of a chain, using the workers in the
+   * pool. We wait until a worker finds the block, so there should be some.
+   *
+   * @param chain The chain.
+   * @param t The transaction for the block.
+   * @return a block that the chain will accept.
+   * @throws IllegalArgumentException if the transaction is invalid or the chain's
+   *   validator is not a DifficultyValidator.
+   * @throws InterruptedException if we are interrupted while we wait.
+   */
+  public Block mine(BlockChain chain, Transaction t) throws InterruptedException {
+    return mine(chain, t, () -> false);
+  } // mine(BlockChain, Transaction)
+
+  /**
+   * Mine the block for a transaction at the end of a chain, using the workers in the
+   * pool, until a worker finds the block or we are told to give up.
+   *
+   * @param chain The chain.
+   * @param t The transaction for the block.
+   * @param stop Says whether to give up; we ask every STOP_POLL_MILLIS milliseconds.
+   * @return a block that the chain will accept.
+   * @throws IllegalArgumentException if the transaction is invalid or the chain's
+   *   validator is not a DifficultyValidator.
+   * @throws CancellationException if we gave up before a worker found the block.
+   * @throws InterruptedException if we are interrupted while we wait.
+   */
+  public Block mine(BlockChain chain, Transaction t, BooleanSupplier stop)
+      throws InterruptedException {
+    if (!(chain.getValidator() instanceof DifficultyValidator)) {
+      throw new IllegalArgumentException("Pools can only mine for a DifficultyValidator.");
+    } // if
+    if (this.closed) {
+      throw new IllegalStateException("The pool is closed.");
+    } // if
+    DifficultyValidator check = (DifficultyValidator) chain.getValidator();
+    BlockTemplate template = chain.templateAfter(t, null);
+    Hash share = (this.shareTarget.getBits() < check.getBits())
+        ? this.shareTarget.getTarget() : check.getTarget();
+    Job job = new Job(this.jobs.incrementAndGet(), template, check,
+        String.join(" ", template.engine.getName(), PoolProtocol.hex(check.getTarget()),
+            PoolProtocol.hex(share), PoolProtocol.hex(new Hash(template.prefix()))));
+    this.current = job;
+    for (Connection connection : this.connections) {
+      assign(connection);
+    } // for
+    try {
+      while (true) {
+        try {
+          return template.toBlock(job.found.get(STOP_POLL_MILLIS, TimeUnit.MILLISECONDS));
+        } catch (TimeoutException e) {
+          if (stop.getAsBoolean()) {
+            throw new CancellationException("Pool mining was cancelled.");
+          } // if
+        } // try/catch
+      } // while
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("The pool is closed.", e.getCause());
+    } finally {
+      this.current = null;
+      broadcast(PoolProtocol.STOP + " " + job.id);
+    } // try/finally
+  } // mine(BlockChain, Transaction, BooleanSupplier)
+
+  /**
+   * Stop listening, and tell the workers to go home.
+   */
+  @Override
+  public void close() {
+    this.closed = true;
+    Job job = this.current;
+    if (job != null) {
+      job.found.completeExceptionally(new IllegalStateException("The pool is closed."));
+    } // if
+    broadcast(PoolProtocol.BYE);
+    try {
+      this.server.close();
+    } catch (IOException e) {
+      // We are done with it either way.
+    } // try/catch
+    for (Connection connection : this.connections) {
+      connection.close();
+    } // for
+  } // close()
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Accept workers until we close.
+   */
+  private void accept() {
+    while (!this.closed) {
+      try {
+        Connection connection = new Connection(this.server.accept());
+        Thread reader = new Thread(() -> serve(connection), "pool-connection");
+        reader.setDaemon(true);
+        reader.start();
+      } catch (IOException e) {
+        // Either we closed, or this one worker failed to connect.
+      } // try/catch
+    } // while
+  } // accept()
+
+  /**
+   * Handle the messages from one worker until it goes away.
+   *
+   * @param connection The worker's connection.
+   */
+  private void serve(Connection connection) {
+    try {
+      String line;
+      while ((line = connection.in.readLine()) != null) {
+        String[] fields = line.split(" ");
+        Job job = this.current;
+        boolean ours = (fields.length > 1) && (job != null)
+            && fields[1].equals(Long.toString(job.id));
+        switch (fields[0]) {
+          case PoolProtocol.HELLO:
+            connection.name = (fields.length > 1) ? fields[1] : "anonymous";
+            this.connections.add(connection);
+            assign(connection);
+            break;
+          case PoolProtocol.DONE:
+            if (ours) {
+              assign(connection);
+            } // if
+            break;
+          case PoolProtocol.SHARE:
+          case PoolProtocol.FOUND:
+            if (ours) {
+              long nonce = Long.parseLong(fields[2]);
+              Hash hash = job.template.hash(nonce);
+              if (hash.satisfies(job.check)) {
+                connection.shares.incrementAndGet();
+                job.found.complete(nonce);
+              } else if (hash.satisfies(this.shareTarget)) {
+                connection.shares.incrementAndGet();
+              } // if/else
+              if (fields[0].equals(PoolProtocol.FOUND) && !job.found.isDone()) {
+                assign(connection);
+              } // if
+            } // if
+            break;
+          default:
+            break;
+        } // switch
+      } // while
+    } catch (IOException | RuntimeException e) {
+      // A worker that misbehaves or goes away just stops getting work.
+    } finally {
+      this.connections.remove(connection);
+      connection.close();
+    } // try/catch/finally
+  } // serve(Connection)
+
+  /**
+   * Give a worker the next range of the current job, if there is one.
+   *
+   * @param connection The worker's connection.
+   */
+  private void assign(Connection connection) {
+    Job job = this.current;
+    if ((job != null) && !job.found.isDone()) {
+      long start = job.next.getAndAdd(this.range);
+      connection.send(String.join(" ", PoolProtocol.WORK, Long.toString(job.id), job.spec,
+          Long.toString(start), Long.toString(start + this.range)));
+    } // if
+  } // assign(Connection)
+
+  /**
+   * Send a message to every worker.
+   *
+   * @param message The message.
+   */
+  private void broadcast(String message) {
+    for (Connection connection : this.connections) {
+      connection.send(message);
+    } // for
+  } // broadcast(String)
+
+  // +---------------+-----------------------------------------------
+  // | Inner classes |
+  // +---------------+
+
+  /**
+   * One block we are mining.
+   */
+  private static class Job {
+    /**
+     * The number we gave the job.
+     */
+    final long id;
+
+    /**
+     * The block, without its nonce.
+     */
+    final BlockTemplate template;
+
+    /**
+     * The target the block must meet.
+     */
+    final HashValidator check;
+
+    /**
+     * The engine, targets, and prefix, as we send them to workers.
+     */
+    final String spec;
+
+    /**
+     * The start of the next range we hand out.
+     */
+    final AtomicLong next = new AtomicLong(1);
+
+    /**
+     * Completes with the nonce once a worker finds it.
+     */
+    final CompletableFuture<Long> found = new CompletableFuture<>();
+
+    Job(long ids, BlockTemplate templates, HashValidator checks, String specs) {
+      this.id = ids;
+      this.template = templates;
+      this.check = checks;
+      this.spec = specs;
+    } // Job(long, BlockTemplate, HashValidator, String)
+  } // class Job
+
+  /**
+   * One worker's connection.
+   */
+  private static class Connection {
+    /**
+     * The socket.
+     */
+    final Socket socket;
+
+    /**
+     * Messages from the worker.
+     */
+    final BufferedReader in;
+
+    /**
+     * Messages to the worker.
+     */
+    final PrintWriter out;
+
+    /**
+     * The number of shares the worker has found.
+     */
+    final AtomicLong shares = new AtomicLong();
+
+    /**
+     * The name the worker gave us.
+     */
+    volatile String name = "anonymous";
+
+    Connection(Socket sockets) throws IOException {
+      this.socket = sockets;
+      this.in = new BufferedReader(
+          new InputStreamReader(sockets.getInputStream(), StandardCharsets.US_ASCII));
+      this.out = new PrintWriter(sockets.getOutputStream(), true, StandardCharsets.US_ASCII);
+    } // Connection(Socket)
+
+    /**
+     * Send a message.
+     *
+     * @param message The message.
+     */
+    synchronized void send(String message) {
+      this.out.println(message);
+    } // send(String)
+
+    /**
+     * Hang up.
+     */
+    void close() {
+      try {
+        this.socket.close();
+      } catch (IOException e) {
+        // Nothing more to do.
+      } // try/catch
+    } // close()
+  } // class Connection
+} // class PoolCoordinator
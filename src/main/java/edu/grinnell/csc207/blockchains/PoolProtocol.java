@@ -0,0 +1,98 @@
+package edu.grinnell.csc207.blockchains;
+
+/**
+ * The messages that a pool coordinator and its workers exchange, one per line of
+ * ASCII text, with fields separated by single spaces and bytes written in hex.
+ *
+ * <pre>
+ *   worker to coordinator:
+ *     HELLO name                 a new worker
+ *     SHARE job nonce            a nonce that meets the share target
+ *     FOUND job nonce            a nonce that meets the block target
+ *     DONE job                   finished a range without finding a block
+ *   coordinator to worker:
+ *     WORK job engine target share prefix start end
+ *                                hash prefix + nonce for nonces in [start, end)
+ *     STOP job                   someone found the block; stop working on it
+ *     BYE                        the pool is closing
+ * </pre>
+ *
+ * @author Moise Milenge
+ * @author Tiffany Yan
+ */
+final class PoolProtocol {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * A new worker.
+   */
+  static final String HELLO = "HELLO";
+
+  /**
+   * A nonce that meets the share target.
+   */
+  static final String SHARE = "SHARE";
+
+  /**
+   * A nonce that meets the block target.
+   */
+  static final String FOUND = "FOUND";
+
+  /**
+   * A range finished without finding a block.
+   */
+  static final String DONE = "DONE";
+
+  /**
+   * A range of nonces to try.
+   */
+  static final String WORK = "WORK";
+
+  /**
+   * Stop working on a job.
+   */
+  static final String STOP = "STOP";
+
+  /**
+   * The pool is closing.
+   */
+  static final String BYE = "BYE";
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Nobody makes protocols; they just use the constants and helpers.
+   */
+  private PoolProtocol() {
+  } // PoolProtocol()
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Write a hash in hex, as Hash.toString() does. An empty hash becomes "-", so that
+   * every field has something in it.
+   *
+   * @param hash The hash to write.
+   * @return the bytes of the hash, two hex digits each.
+   */
+  static String hex(Hash hash) {
+    return (hash.length() == 0) ? "-" : hash.toString();
+  } // hex(Hash)
+
+  /**
+   * Read a hash written by hex(Hash).
+   *
+   * @param str The hex digits.
+   * @return the hash.
+   * @throws IllegalArgumentException if the string is not hex.
+   */
+  static Hash unhex(String str) {
+    return str.equals("-") ? new Hash(new byte[0]) : Hash.fromHex(str);
+  } // unhex(String)
+} // class PoolProtocol
@@ -0,0 +1,170 @@
+package edu.grinnell.csc207.blockchains;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A worker for a mining pool. It connects to a PoolCoordinator, hashes the ranges of
+ * nonces it is given, and reports shares and blocks. Workers only need to know about
+ * digest engines and difficulty targets, so they can run in other JVMs, which is what
+ * main is for.
+ *
+ * @author Moise Milenge
+ * @author Tiffany Yan
+ */
+public class PoolWorker implements Runnable {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * Between checks for new messages, we try this many nonces.
+   */
+  static final int POLL_INTERVAL = 1 << 12;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The port the coordinator listens on.
+   */
+  private final int port;
+
+  /**
+   * The name we give the coordinator.
+   */
+  private final String name;
+
+  /**
+   * The number of hashes we have computed.
+   */
+  private volatile long hashes;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a worker for the coordinator on a loopback port.
+   *
+   * @param ports The port the coordinator listens on.
+   * @param names The name to give the coordinator, which must not contain spaces.
+   * @throws IllegalArgumentException if the name is empty or contains whitespace.
+   */
+  public PoolWorker(int ports, String names) {
+    if (names.isEmpty() || names.matches(".*\\s.*")) {
+      throw new IllegalArgumentException("Worker names cannot be empty or contain spaces.");
+    } // if
+    this.port = ports;
+    this.name = names;
+  } // PoolWorker(int, String)
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Get the number of hashes this worker has computed.
+   *
+   * @return the number of hashes.
+   */
+  public long getHashes() {
+    return this.hashes;
+  } // getHashes()
+
+  /**
+   * Work for the coordinator until it says goodbye or goes away.
+   */
+  @Override
+  public void run() {
+    try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), this.port);
+        BufferedReader in = new BufferedReader(
+            new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+        PrintWriter out = new PrintWriter(socket.getOutputStream(), true,
+            StandardCharsets.US_ASCII)) {
+      out.println(PoolProtocol.HELLO + " " + this.name);
+      String line = in.readLine();
+      while ((line != null) && !line.equals(PoolProtocol.BYE)) {
+        line = line.startsWith(PoolProtocol.WORK + " ") ? work(line, in, out) : in.readLine();
+      } // while
+    } catch (IOException e) {
+      // The coordinator went away, so there is nothing left to do.
+    } // try/catch
+  } // run()
+
+  /**
+   * Run workers in this JVM until the coordinator closes.
+   *
+   * @param args The coordinator's port on the loopback interface, and optionally the
+   *   number of workers to run (default: one per processor).
+   */
+  public static void main(String[] args) throws Exception {
+    if (args.length < 1) {
+      System.err.println("Usage: PoolWorker port [workers]");
+      return;
+    } // if
+    int port = Integer.parseInt(args[0]);
+    int count = (args.length > 1) ? Integer.parseInt(args[1])
+        : Runtime.getRuntime().availableProcessors();
+    String host = ProcessHandle.current().pid() + "-";
+    Thread[] threads = new Thread[count];
+    for (int i = 0; i < count; i++) {
+      threads[i] = new Thread(new PoolWorker(port, host + i), "pool-worker-" + i);
+      threads[i].start();
+    } // for
+    for (Thread thread : threads) {
+      thread.join();
+    } // for
+  } // main(String[])
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Search one range of nonces, stopping early if the coordinator sends another
+   * message.
+   *
+   * @param work The WORK message.
+   * @param in Where messages come from.
+   * @param out Where our messages go.
+   * @return the next message to handle.
+   * @throws IOException if the connection fails.
+   */
+  private String work(String work, BufferedReader in, PrintWriter out) throws IOException {
+    String[] fields = work.split(" ");
+    String job = fields[1];
+    DigestEngine engine = DigestEngine.forName(fields[2]);
+    HashValidator target = new DifficultyValidator(PoolProtocol.unhex(fields[3]));
+    HashValidator share = new DifficultyValidator(PoolProtocol.unhex(fields[4]));
+    DigestEngine.Hasher hasher = engine.newHasher(PoolProtocol.unhex(fields[5]).getBytes());
+    long start = Long.parseLong(fields[6]);
+    long end = Long.parseLong(fields[7]);
+
+    byte[] digest = new byte[engine.getDigestLength()];
+    for (long nonce = start; nonce < end; nonce++) {
+      if (((nonce - start) % POLL_INTERVAL == 0) && in.ready()) {
+        this.hashes += nonce - start;
+        return in.readLine();
+      } // if
+      hasher.hash(nonce, digest);
+      if (share.isValid(digest, 0, digest.length)) {
+        if (target.isValid(digest, 0, digest.length)) {
+          this.hashes += nonce - start + 1;
+          out.println(PoolProtocol.FOUND + " " + job + " " + nonce);
+          return in.readLine();
+        } // if
+        out.println(PoolProtocol.SHARE + " " + job + " " + nonce);
+      } // if
+    } // for
+    this.hashes += end - start;
+    out.println(PoolProtocol.DONE + " " + job);
+    return in.readLine();
+  } // work(String, BufferedReader, PrintWriter)
+} // class PoolWorker
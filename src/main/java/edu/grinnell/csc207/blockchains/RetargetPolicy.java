@@ -0,0 +1,134 @@
+package edu.grinnell.csc207.blockchains;
+
+import java.math.BigInteger;
+import java.time.Duration;
+
+/**
+ * A policy for adjusting the difficulty of a chain so that blocks keep arriving at a
+ * steady rate. After every window of blocks, we scale the target by how long the window
+ * actually took compared to how long it should have taken, limited to a factor of four
+ * either way.
+ *
+ * @author Moise Milenge
+ * @author Tiffany Yan
+ */
+public class RetargetPolicy {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The most we change the target by in one step.
+   */
+  static final int MAX_FACTOR = 4;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * How long one block should take, in nanoseconds.
+   */
+  private final long blockNanos;
+
+  /**
+   * The number of blocks between adjustments.
+   */
+  private final int window;
+
+  /**
+   * The fewest leading zero bits we ever require.
+   */
+  private final int minBits;
+
+  /**
+   * The most leading zero bits we ever require.
+   */
+  private final int maxBits;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a new policy.
+   *
+   * @param blockTime How long one block should take.
+   * @param windows The number of blocks between adjustments.
+   * @param minZeroBits The fewest leading zero bits we ever require.
+   * @param maxZeroBits The most leading zero bits we ever require.
+   * @throws IllegalArgumentException if any of the parameters are out of range.
+   */
+  public RetargetPolicy(Duration blockTime, int windows, int minZeroBits, int maxZeroBits) {
+    if ((blockTime == null) || blockTime.isNegative() || blockTime.isZero()) {
+      throw new IllegalArgumentException("Block time must be positive.");
+    } // if
+    if (windows < 1) {
+      throw new IllegalArgumentException("Window must be at least one block.");
+    } // if
+    if ((minZeroBits < 0) || (maxZeroBits > DifficultyValidator.DIGEST_BITS)
+        || (minZeroBits > maxZeroBits)) {
+      throw new IllegalArgumentException("Invalid range of difficulties.");
+    } // if
+    this.blockNanos = blockTime.toNanos();
+    this.window = windows;
+    this.minBits = minZeroBits;
+    this.maxBits = maxZeroBits;
+  } // RetargetPolicy(Duration, int, int, int)
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Get the number of blocks between adjustments.
+   *
+   * @return the window size.
+   */
+  public int getWindow() {
+    return this.window;
+  } // getWindow()
+
+  /**
+   * Get how long one block should take.
+   *
+   * @return the block time.
+   */
+  public Duration getBlockTime() {
+    return Duration.ofNanos(this.blockNanos);
+  } // getBlockTime()
+
+  /**
+   * Compute the difficulty for the next window.
+   *
+   * @param current The difficulty during the last window.
+   * @param elapsedNanos How long the last window took.
+   * @param blocks The number of blocks in the last window.
+   * @return the difficulty for the next window.
+   */
+  public DifficultyValidator retarget(DifficultyValidator current, long elapsedNanos,
+      int blocks) {
+    BigInteger expected = BigInteger.valueOf(this.blockNanos).multiply(BigInteger.valueOf(blocks));
+    BigInteger actual = BigInteger.valueOf(Math.max(elapsedNanos, 1));
+    BigInteger factor = BigInteger.valueOf(MAX_FACTOR);
+    actual = actual.max(expected.divide(factor)).min(expected.multiply(factor));
+
+    BigInteger next = current.getTargetValue().add(BigInteger.ONE).multiply(actual)
+        .divide(expected).subtract(BigInteger.ONE);
+    BigInteger easiest = BigInteger.ONE.shiftLeft(DifficultyValidator.DIGEST_BITS - this.minBits)
+        .subtract(BigInteger.ONE);
+    BigInteger hardest = BigInteger.ONE.shiftLeft(DifficultyValidator.DIGEST_BITS - this.maxBits)
+        .subtract(BigInteger.ONE);
+    return new DifficultyValidator(next.min(easiest).max(hardest));
+  } // retarget(DifficultyValidator, long, int)
+
+  /**
+   * Get a string representation of the policy.
+   *
+   * @return a string representation of the policy.
+   */
+  public String toString() {
+    return String.format("RetargetPolicy[%s per block, every %d blocks, %d-%d bits]",
+        this.getBlockTime(), this.window, this.minBits, this.maxBits);
+  } // toString()
+} // class RetargetPolicy
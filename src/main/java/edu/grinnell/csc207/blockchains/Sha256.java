@@ -0,0 +1,315 @@
+package edu.grinnell.csc207.blockchains;
+
+import java.util.Arrays;
+
+/**
+ * A plain Java implementation of SHA-256 (FIPS 180-4) that never allocates once it has
+ * been created. Unlike MessageDigest, it can save its state with mark() and go back to
+ * it with restore(), which is what lets a miner hash the fixed part of a block once and
+ * then try nonce after nonce on top of it.
+ *
+ * @author Moise Milenge
+ * @author Tiffany Yan
+ */
+final class Sha256 {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The number of bytes in a digest.
+   */
+  static final int DIGEST_LENGTH = 32;
+
+  /**
+   * The number of bytes in one block of input.
+   */
+  static final int BLOCK_LENGTH = 64;
+
+  /**
+   * The round constants.
+   */
+  static final int[] K = {
+    0x428a2f98, 0x71374491, 0xb5c0fbcf, 0xe9b5dba5, 0x3956c25b, 0x59f111f1, 0x923f82a4, 0xab1c5ed5,
+    0xd807aa98, 0x12835b01, 0x243185be, 0x550c7dc3, 0x72be5d74, 0x80deb1fe, 0x9bdc06a7, 0xc19bf174,
+    0xe49b69c1, 0xefbe4786, 0x0fc19dc6, 0x240ca1cc, 0x2de92c6f, 0x4a7484aa, 0x5cb0a9dc, 0x76f988da,
+    0x983e5152, 0xa831c66d, 0xb00327c8, 0xbf597fc7, 0xc6e00bf3, 0xd5a79147, 0x06ca6351, 0x14292967,
+    0x27b70a85, 0x2e1b2138, 0x4d2c6dfc, 0x53380d13, 0x650a7354, 0x766a0abb, 0x81c2c92e, 0x92722c85,
+    0xa2bfe8a1, 0xa81a664b, 0xc24b8b70, 0xc76c51a3, 0xd192e819, 0xd6990624, 0xf40e3585, 0x106aa070,
+    0x19a4c116, 0x1e376c08, 0x2748774c, 0x34b0bcb5, 0x391c0cb3, 0x4ed8aa4a, 0x5b9cca4f, 0x682e6ff3,
+    0x748f82ee, 0x78a5636f, 0x84c87814, 0x8cc70208, 0x90befffa, 0xa4506ceb, 0xbef9a3f7, 0xc67178f2
+  };
+
+  /**
+   * The initial hash value.
+   */
+  static final int[] IV = {
+    0x6a09e667, 0xbb67ae85, 0x3c6ef372, 0xa54ff53a, 0x510e527f, 0x9b05688c, 0x1f83d9ab, 0x5be0cd19
+  };
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The current chaining value.
+   */
+  private final int[] state = new int[8];
+
+  /**
+   * The message schedule, reused for every block.
+   */
+  private final int[] w = new int[64];
+
+  /**
+   * Input that does not yet fill a block.
+   */
+  private final byte[] buffer = new byte[BLOCK_LENGTH];
+
+  /**
+   * The number of bytes in the buffer.
+   */
+  private int buffered;
+
+  /**
+   * The total number of bytes hashed so far.
+   */
+  private long length;
+
+  /**
+   * The chaining value saved by mark().
+   */
+  private final int[] markState = new int[8];
+
+  /**
+   * The buffered input saved by mark().
+   */
+  private final byte[] markBuffer = new byte[BLOCK_LENGTH];
+
+  /**
+   * The number of buffered bytes saved by mark().
+   */
+  private int markBuffered;
+
+  /**
+   * The total length saved by mark().
+   */
+  private long markLength;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a new digest, ready for input.
+   */
+  Sha256() {
+    this.reset();
+    this.mark();
+  } // Sha256()
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Forget all input.
+   */
+  void reset() {
+    System.arraycopy(IV, 0, this.state, 0, 8);
+    this.buffered = 0;
+    this.length = 0;
+  } // reset()
+
+  /**
+   * Save the current state so that restore() can return to it.
+   */
+  void mark() {
+    System.arraycopy(this.state, 0, this.markState, 0, 8);
+    System.arraycopy(this.buffer, 0, this.markBuffer, 0, this.buffered);
+    this.markBuffered = this.buffered;
+    this.markLength = this.length;
+  } // mark()
+
+  /**
+   * Return to the state saved by the last call to mark().
+   */
+  void restore() {
+    System.arraycopy(this.markState, 0, this.state, 0, 8);
+    System.arraycopy(this.markBuffer, 0, this.buffer, 0, this.markBuffered);
+    this.buffered = this.markBuffered;
+    this.length = this.markLength;
+  } // restore()
+
+  /**
+   * Add some bytes to the input.
+   *
+   * @param in The array that holds the bytes.
+   * @param offset The index of the first byte.
+   * @param len The number of bytes.
+   */
+  void update(byte[] in, int offset, int len) {
+    this.length += len;
+    int end = offset + len;
+    if (this.buffered > 0) {
+      int n = Math.min(len, BLOCK_LENGTH - this.buffered);
+      System.arraycopy(in, offset, this.buffer, this.buffered, n);
+      this.buffered += n;
+      offset += n;
+      if (this.buffered < BLOCK_LENGTH) {
+        return;
+      } // if
+      compress(this.buffer, 0);
+      this.buffered = 0;
+    } // if
+    while (end - offset >= BLOCK_LENGTH) {
+      compress(in, offset);
+      offset += BLOCK_LENGTH;
+    } // while
+    System.arraycopy(in, offset, this.buffer, 0, end - offset);
+    this.buffered = end - offset;
+  } // update(byte[], int, int)
+
+  /**
+   * Add the eight big-endian bytes of a long to the input.
+   *
+   * @param value The long to add.
+   */
+  void updateLong(long value) {
+    if (this.buffered > BLOCK_LENGTH - Long.BYTES) {
+      for (int shift = 56; shift >= 0; shift -= 8) {
+        this.buffer[this.buffered++] = (byte) (value >>> shift);
+        if (this.buffered == BLOCK_LENGTH) {
+          compress(this.buffer, 0);
+          this.buffered = 0;
+        } // if
+      } // for
+    } else {
+      putLong(this.buffer, this.buffered, value);
+      this.buffered += Long.BYTES;
+      if (this.buffered == BLOCK_LENGTH) {
+        compress(this.buffer, 0);
+        this.buffered = 0;
+      } // if
+    } // if/else
+    this.length += Long.BYTES;
+  } // updateLong(long)
+
+  /**
+   * Finish the hash and write the digest. Afterwards, the state is undefined until the
+   * next call to reset() or restore().
+   *
+   * @param out The array to write the digest to.
+   * @param offset The index at which the digest starts.
+   */
+  void digest(byte[] out, int offset) {
+    long bits = this.length << 3;
+    this.buffer[this.buffered++] = (byte) 0x80;
+    if (this.buffered > BLOCK_LENGTH - Long.BYTES) {
+      Arrays.fill(this.buffer, this.buffered, BLOCK_LENGTH, (byte) 0);
+      compress(this.buffer, 0);
+      this.buffered = 0;
+    } // if
+    Arrays.fill(this.buffer, this.buffered, BLOCK_LENGTH - Long.BYTES, (byte) 0);
+    putLong(this.buffer, BLOCK_LENGTH - Long.BYTES, bits);
+    compress(this.buffer, 0);
+    for (int i = 0; i < 8; i++) {
+      putInt(out, offset + 4 * i, this.state[i]);
+    } // for
+  } // digest(byte[], int)
+
+  /**
+   * Copy out the chaining value. Only meaningful when the input so far fills a whole
+   * number of blocks.
+   *
+   * @param out Where to put the eight words of the chaining value.
+   */
+  void getState(int[] out) {
+    System.arraycopy(this.state, 0, out, 0, 8);
+  } // getState(int[])
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Run the compression function on one block of input.
+   *
+   * @param block The array that holds the block.
+   * @param offset The index at which the block starts.
+   */
+  private void compress(byte[] block, int offset) {
+    int[] sched = this.w;
+    for (int t = 0; t < 16; t++) {
+      int i = offset + 4 * t;
+      sched[t] = (block[i] << 24) | ((block[i + 1] & 0xff) << 16)
+          | ((block[i + 2] & 0xff) << 8) | (block[i + 3] & 0xff);
+    } // for
+    for (int t = 16; t < 64; t++) {
+      int w15 = sched[t - 15];
+      int w2 = sched[t - 2];
+      int s0 = Integer.rotateRight(w15, 7) ^ Integer.rotateRight(w15, 18) ^ (w15 >>> 3);
+      int s1 = Integer.rotateRight(w2, 17) ^ Integer.rotateRight(w2, 19) ^ (w2 >>> 10);
+      sched[t] = sched[t - 16] + s0 + sched[t - 7] + s1;
+    } // for
+
+    int a = this.state[0];
+    int b = this.state[1];
+    int c = this.state[2];
+    int d = this.state[3];
+    int e = this.state[4];
+    int f = this.state[5];
+    int g = this.state[6];
+    int h = this.state[7];
+    for (int t = 0; t < 64; t++) {
+      int s1 = Integer.rotateRight(e, 6) ^ Integer.rotateRight(e, 11) ^ Integer.rotateRight(e, 25);
+      int ch = (e & f) ^ (~e & g);
+      int t1 = h + s1 + ch + K[t] + sched[t];
+      int s0 = Integer.rotateRight(a, 2) ^ Integer.rotateRight(a, 13) ^ Integer.rotateRight(a, 22);
+      int maj = (a & b) ^ (a & c) ^ (b & c);
+      int t2 = s0 + maj;
+      h = g;
+      g = f;
+      f = e;
+      e = d + t1;
+      d = c;
+      c = b;
+      b = a;
+      a = t1 + t2;
+    } // for
+    this.state[0] += a;
+    this.state[1] += b;
+    this.state[2] += c;
+    this.state[3] += d;
+    this.state[4] += e;
+    this.state[5] += f;
+    this.state[6] += g;
+    this.state[7] += h;
+  } // compress(byte[], int)
+
+  /**
+   * Write the four big-endian bytes of an int.
+   *
+   * @param out The array to write to.
+   * @param offset The index of the first byte.
+   * @param value The int to write.
+   */
+  static void putInt(byte[] out, int offset, int value) {
+    out[offset] = (byte) (value >>> 24);
+    out[offset + 1] = (byte) (value >>> 16);
+    out[offset + 2] = (byte) (value >>> 8);
+    out[offset + 3] = (byte) value;
+  } // putInt(byte[], int, int)
+
+  /**
+   * Write the eight big-endian bytes of a long.
+   *
+   * @param out The array to write to.
+   * @param offset The index of the first byte.
+   * @param value The long to write.
+   */
+  static void putLong(byte[] out, int offset, long value) {
+    putInt(out, offset, (int) (value >>> 32));
+    putInt(out, offset + 4, (int) value);
+  } // putLong(byte[], int, long)
+} // class Sha256
@@ -0,0 +1,266 @@
+package edu.grinnell.csc207.blockchains;
+
+/**
+ * SHA-256 written out for block headers, whose prefix is four bytes longer than a whole
+ * number of blocks (68 bytes for a SHA-256 header). The prefix's whole blocks are hashed
+ * once. What is left fits in one final block: the last word of the prefix, the two words
+ * of the nonce, the padding, and the length. Only the two nonce words change from one
+ * nonce to the next, so every other word of that block, and every part of the message
+ * schedule that depends only on them, is worked out once. The rounds are unrolled eight
+ * at a time.
+ *
+ * @author Moise Milenge
+ * @author Tiffany Yan
+ */
+final class Sha256Header implements DigestEngine.Hasher {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The number of prefix bytes in the final block.
+   */
+  static final int TAIL = Integer.BYTES;
+
+  /**
+   * The first word of padding.
+   */
+  private static final int PAD = 0x80000000;
+
+  /**
+   * Prefixes must be shorter than this, so that the length in bits fits in word 15.
+   */
+  static final int MAX_PREFIX = (1 << 29) - Long.BYTES;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The chaining value after the prefix's whole blocks.
+   */
+  private final int[] mid = new int[8];
+
+  /**
+   * Word 0 of the final block: the last four bytes of the prefix.
+   */
+  private final int w0;
+
+  /**
+   * Word 15 of the final block: the length in bits.
+   */
+  private final int len;
+
+  /**
+   * sigma1(len), which goes into word 17.
+   */
+  private final int s1Len;
+
+  /**
+   * sigma0(PAD), which goes into word 18.
+   */
+  private final int s0Pad;
+
+  /**
+   * sigma0(len), which goes into word 30.
+   */
+  private final int s0Len;
+
+  /**
+   * Words 16 to 63 of the message schedule.
+   */
+  private final int[] w = new int[64];
+
+  /**
+   * K[t] + w[t] for each round. Rounds 0 and 3 to 15 never change.
+   */
+  private final int[] kw = new int[64];
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a hasher for a prefix.
+   *
+   * @param prefix The bytes before the nonce, whose length must fit().
+   * @throws IllegalArgumentException if the prefix does not fit.
+   */
+  Sha256Header(byte[] prefix) {
+    if (!fits(prefix.length)) {
+      throw new IllegalArgumentException("Prefix of " + prefix.length
+          + " bytes is not laid out like a header.");
+    } // if
+    int whole = prefix.length - TAIL;
+    Sha256 sha = new Sha256();
+    sha.update(prefix, 0, whole);
+    sha.getState(this.mid);
+
+    this.w0 = (prefix[whole] << 24) | ((prefix[whole + 1] & 0xff) << 16)
+        | ((prefix[whole + 2] & 0xff) << 8) | (prefix[whole + 3] & 0xff);
+    this.len = (prefix.length + Long.BYTES) << 3;
+    this.s1Len = sigma1(this.len);
+    this.s0Pad = sigma0(PAD);
+    this.s0Len = sigma0(this.len);
+
+    System.arraycopy(Sha256.K, 0, this.kw, 0, 16);
+    this.kw[0] += this.w0;
+    this.kw[3] += PAD;
+    this.kw[15] += this.len;
+  } // Sha256Header(byte[])
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Determine whether prefixes of some length are laid out like a header.
+   *
+   * @param length The length of the prefix.
+   * @return true if the prefix ends four bytes into a block and is not huge.
+   */
+  static boolean fits(int length) {
+    return (length >= Sha256.BLOCK_LENGTH) && (length < MAX_PREFIX)
+        && (length % Sha256.BLOCK_LENGTH == TAIL);
+  } // fits(int)
+
+  @Override
+  public void hash(long nonce, byte[] out) {
+    int[] sched = this.w;
+    int[] k = this.kw;
+    int x = (int) (nonce >>> 32);
+    int y = (int) nonce;
+    k[1] = Sha256.K[1] + x;
+    k[2] = Sha256.K[2] + y;
+
+    // Words 16 to 31, leaving out the terms that are always zero (words 4 to 14).
+    int w16 = sigma0(x) + this.w0;
+    int w17 = this.s1Len + sigma0(y) + x;
+    int w18 = sigma1(w16) + this.s0Pad + y;
+    int w19 = sigma1(w17) + PAD;
+    int w20 = sigma1(w18);
+    int w21 = sigma1(w19);
+    int w22 = sigma1(w20) + this.len;
+    int w23 = sigma1(w21) + w16;
+    int w24 = sigma1(w22) + w17;
+    int w25 = sigma1(w23) + w18;
+    int w26 = sigma1(w24) + w19;
+    int w27 = sigma1(w25) + w20;
+    int w28 = sigma1(w26) + w21;
+    int w29 = sigma1(w27) + w22;
+    int w30 = sigma1(w28) + w23 + this.s0Len;
+    int w31 = sigma1(w29) + w24 + sigma0(w16) + this.len;
+    sched[16] = w16;
+    sched[17] = w17;
+    sched[18] = w18;
+    sched[19] = w19;
+    sched[20] = w20;
+    sched[21] = w21;
+    sched[22] = w22;
+    sched[23] = w23;
+    sched[24] = w24;
+    sched[25] = w25;
+    sched[26] = w26;
+    sched[27] = w27;
+    sched[28] = w28;
+    sched[29] = w29;
+    sched[30] = w30;
+    sched[31] = w31;
+    for (int t = 16; t < 32; t++) {
+      k[t] = Sha256.K[t] + sched[t];
+    } // for
+    for (int t = 32; t < 64; t++) {
+      int v = sigma1(sched[t - 2]) + sched[t - 7] + sigma0(sched[t - 15]) + sched[t - 16];
+      sched[t] = v;
+      k[t] = Sha256.K[t] + v;
+    } // for
+
+    int a = this.mid[0];
+    int b = this.mid[1];
+    int c = this.mid[2];
+    int d = this.mid[3];
+    int e = this.mid[4];
+    int f = this.mid[5];
+    int g = this.mid[6];
+    int h = this.mid[7];
+    for (int t = 0; t < 64; t += 8) {
+      h += bigSigma1(e) + ((e & f) ^ (~e & g)) + k[t];
+      d += h;
+      h += bigSigma0(a) + ((a & b) ^ (a & c) ^ (b & c));
+      g += bigSigma1(d) + ((d & e) ^ (~d & f)) + k[t + 1];
+      c += g;
+      g += bigSigma0(h) + ((h & a) ^ (h & b) ^ (a & b));
+      f += bigSigma1(c) + ((c & d) ^ (~c & e)) + k[t + 2];
+      b += f;
+      f += bigSigma0(g) + ((g & h) ^ (g & a) ^ (h & a));
+      e += bigSigma1(b) + ((b & c) ^ (~b & d)) + k[t + 3];
+      a += e;
+      e += bigSigma0(f) + ((f & g) ^ (f & h) ^ (g & h));
+      d += bigSigma1(a) + ((a & b) ^ (~a & c)) + k[t + 4];
+      h += d;
+      d += bigSigma0(e) + ((e & f) ^ (e & g) ^ (f & g));
+      c += bigSigma1(h) + ((h & a) ^ (~h & b)) + k[t + 5];
+      g += c;
+      c += bigSigma0(d) + ((d & e) ^ (d & f) ^ (e & f));
+      b += bigSigma1(g) + ((g & h) ^ (~g & a)) + k[t + 6];
+      f += b;
+      b += bigSigma0(c) + ((c & d) ^ (c & e) ^ (d & e));
+      a += bigSigma1(f) + ((f & g) ^ (~f & h)) + k[t + 7];
+      e += a;
+      a += bigSigma0(b) + ((b & c) ^ (b & d) ^ (c & d));
+    } // for
+
+    Sha256.putInt(out, 0, this.mid[0] + a);
+    Sha256.putInt(out, 4, this.mid[1] + b);
+    Sha256.putInt(out, 8, this.mid[2] + c);
+    Sha256.putInt(out, 12, this.mid[3] + d);
+    Sha256.putInt(out, 16, this.mid[4] + e);
+    Sha256.putInt(out, 20, this.mid[5] + f);
+    Sha256.putInt(out, 24, this.mid[6] + g);
+    Sha256.putInt(out, 28, this.mid[7] + h);
+  } // hash(long, byte[])
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * The small sigma0 function of the message schedule.
+   *
+   * @param x The word.
+   * @return sigma0(x).
+   */
+  private static int sigma0(int x) {
+    return Integer.rotateRight(x, 7) ^ Integer.rotateRight(x, 18) ^ (x >>> 3);
+  } // sigma0(int)
+
+  /**
+   * The small sigma1 function of the message schedule.
+   *
+   * @param x The word.
+   * @return sigma1(x).
+   */
+  private static int sigma1(int x) {
+    return Integer.rotateRight(x, 17) ^ Integer.rotateRight(x, 19) ^ (x >>> 10);
+  } // sigma1(int)
+
+  /**
+   * The big Sigma0 function of the rounds.
+   *
+   * @param x The word.
+   * @return Sigma0(x).
+   */
+  private static int bigSigma0(int x) {
+    return Integer.rotateRight(x, 2) ^ Integer.rotateRight(x, 13) ^ Integer.rotateRight(x, 22);
+  } // bigSigma0(int)
+
+  /**
+   * The big Sigma1 function of the rounds.
+   *
+   * @param x The word.
+   * @return Sigma1(x).
+   */
+  private static int bigSigma1(int x) {
+    return Integer.rotateRight(x, 6) ^ Integer.rotateRight(x, 11) ^ Integer.rotateRight(x, 25);
+  } // bigSigma1(int)
+} // class Sha256Header
@@ -0,0 +1,247 @@
+package edu.grinnell.csc207.blockchains;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Computes SHA-256 for several consecutive nonces of one block template at once, one
+ * nonce per lane of a vector register: 4 lanes with SSE or NEON, 8 with AVX2, and 16
+ * with AVX-512. We hash the full blocks of the prefix once, so each pass only runs the
+ * last one or two blocks.
+ *
+ * <p>This class uses the incubating jdk.incubator.vector module, which the JVM only
+ * loads when started with --add-modules jdk.incubator.vector. Do not touch it unless
+ * BlockTemplate.lanesAvailable() says it is safe to.
+ *
+ * @author Moise Milenge
+ * @author Tiffany Yan
+ */
+final class Sha256Lanes {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The fewest lanes worth using; narrower vectors are emulated and slow.
+   */
+  static final int MIN_LANES = 4;
+
+  /**
+   * The shape of the vectors we use. HotSpot only turns vector operations into vector
+   * instructions when it can see the shape is a constant, so this must stay static and
+   * final.
+   */
+  private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The number of nonces we hash at once.
+   */
+  private final int lanes;
+
+  /**
+   * The chaining value after the full blocks of the prefix.
+   */
+  private final int[] midstate = new int[8];
+
+  /**
+   * The words of the final block or blocks, with zeros where the nonce goes.
+   */
+  private final int[] words;
+
+  /**
+   * The indices (in words) of the final words that hold part of the nonce.
+   */
+  private final int[] nonceWords;
+
+  /**
+   * The bit position of the nonce within the final blocks.
+   */
+  private final int nonceBit;
+
+  /**
+   * The message schedule for each final block; word t of lane l is at t * lanes + l.
+   * The words that do not depend on the nonce are filled in once, up front.
+   */
+  private final int[][] w;
+
+  /**
+   * The chaining values of every lane, when we write them out.
+   */
+  private final int[] chain;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Get ready to hash a prefix followed by many nonces, using the widest vectors the
+   * processor supports.
+   *
+   * @param prefix The bytes that come before the nonce.
+   */
+  Sha256Lanes(byte[] prefix) {
+    this.lanes = SPECIES.length();
+
+    int full = prefix.length - (prefix.length % Sha256.BLOCK_LENGTH);
+    Sha256 sha = new Sha256();
+    sha.update(prefix, 0, full);
+    sha.getState(this.midstate);
+
+    int rem = prefix.length - full;
+    int finalLength = (rem + Long.BYTES + 1 + Long.BYTES <= Sha256.BLOCK_LENGTH)
+        ? Sha256.BLOCK_LENGTH : 2 * Sha256.BLOCK_LENGTH;
+    byte[] tail = new byte[finalLength];
+    System.arraycopy(prefix, full, tail, 0, rem);
+    tail[rem + Long.BYTES] = (byte) 0x80;
+    Sha256.putLong(tail, finalLength - Long.BYTES, (prefix.length + (long) Long.BYTES) << 3);
+    this.words = new int[finalLength / Integer.BYTES];
+    for (int i = 0; i < this.words.length; i++) {
+      this.words[i] = (tail[4 * i] << 24) | ((tail[4 * i + 1] & 0xff) << 16)
+          | ((tail[4 * i + 2] & 0xff) << 8) | (tail[4 * i + 3] & 0xff);
+    } // for
+    this.nonceBit = rem * Byte.SIZE;
+
+    // The nonce covers two words, or three when it does not start on a word boundary.
+    int firstWord = this.nonceBit / Integer.SIZE;
+    int lastWord = (this.nonceBit + Long.SIZE - 1) / Integer.SIZE;
+    this.nonceWords = new int[lastWord - firstWord + 1];
+    for (int i = 0; i < this.nonceWords.length; i++) {
+      this.nonceWords[i] = firstWord + i;
+    } // for
+
+    this.w = new int[this.words.length / 16][64 * this.lanes];
+    for (int i = 0; i < this.words.length; i++) {
+      int[] sched = this.w[i / 16];
+      for (int l = 0; l < this.lanes; l++) {
+        sched[(i % 16) * this.lanes + l] = this.words[i];
+      } // for
+    } // for
+    this.chain = new int[8 * this.lanes];
+  } // Sha256Lanes(byte[])
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Get the number of lanes the processor's widest vectors have room for.
+   *
+   * @return the preferred number of lanes.
+   */
+  static int preferredLanes() {
+    return SPECIES.length();
+  } // preferredLanes()
+
+  /**
+   * Get the number of nonces we hash at once.
+   *
+   * @return the number of lanes.
+   */
+  int getLanes() {
+    return this.lanes;
+  } // getLanes()
+
+  /**
+   * Hash the nonces first, first + 1, ..., first + getLanes() - 1.
+   *
+   * @param first The first nonce.
+   * @param out Where to put the digests, one after another, Sha256.DIGEST_LENGTH bytes
+   *   apart.
+   */
+  void hash(long first, byte[] out) {
+    final int n = this.lanes;
+    for (int i : this.nonceWords) {
+      int[] sched = this.w[i / 16];
+      int base = (i % 16) * n;
+      int shift = this.nonceBit - Integer.SIZE * i;
+      for (int l = 0; l < n; l++) {
+        long nonce = first + l;
+        int part = (shift >= 0)
+            ? (int) (nonce >>> (Integer.SIZE + shift))
+            : (int) ((nonce << -shift) >>> Integer.SIZE);
+        sched[base + l] = this.words[i] | part;
+      } // for
+    } // for
+
+    IntVector h0 = IntVector.broadcast(SPECIES, this.midstate[0]);
+    IntVector h1 = IntVector.broadcast(SPECIES, this.midstate[1]);
+    IntVector h2 = IntVector.broadcast(SPECIES, this.midstate[2]);
+    IntVector h3 = IntVector.broadcast(SPECIES, this.midstate[3]);
+    IntVector h4 = IntVector.broadcast(SPECIES, this.midstate[4]);
+    IntVector h5 = IntVector.broadcast(SPECIES, this.midstate[5]);
+    IntVector h6 = IntVector.broadcast(SPECIES, this.midstate[6]);
+    IntVector h7 = IntVector.broadcast(SPECIES, this.midstate[7]);
+    for (int[] sched : this.w) {
+      for (int t = 16; t < 64; t++) {
+        IntVector w15 = IntVector.fromArray(SPECIES, sched, (t - 15) * n);
+        IntVector w2 = IntVector.fromArray(SPECIES, sched, (t - 2) * n);
+        IntVector s0 = w15.lanewise(VectorOperators.ROR, 7)
+            .lanewise(VectorOperators.XOR, w15.lanewise(VectorOperators.ROR, 18))
+            .lanewise(VectorOperators.XOR, w15.lanewise(VectorOperators.LSHR, 3));
+        IntVector s1 = w2.lanewise(VectorOperators.ROR, 17)
+            .lanewise(VectorOperators.XOR, w2.lanewise(VectorOperators.ROR, 19))
+            .lanewise(VectorOperators.XOR, w2.lanewise(VectorOperators.LSHR, 10));
+        IntVector.fromArray(SPECIES, sched, (t - 16) * n).add(s0)
+            .add(IntVector.fromArray(SPECIES, sched, (t - 7) * n)).add(s1)
+            .intoArray(sched, t * n);
+      } // for
+
+      IntVector a = h0;
+      IntVector b = h1;
+      IntVector c = h2;
+      IntVector d = h3;
+      IntVector e = h4;
+      IntVector f = h5;
+      IntVector g = h6;
+      IntVector h = h7;
+      for (int t = 0; t < 64; t++) {
+        IntVector s1 = e.lanewise(VectorOperators.ROR, 6)
+            .lanewise(VectorOperators.XOR, e.lanewise(VectorOperators.ROR, 11))
+            .lanewise(VectorOperators.XOR, e.lanewise(VectorOperators.ROR, 25));
+        IntVector ch = g.lanewise(VectorOperators.XOR,
+            e.and(f.lanewise(VectorOperators.XOR, g)));
+        IntVector t1 = h.add(s1).add(ch).add(Sha256.K[t])
+            .add(IntVector.fromArray(SPECIES, sched, t * n));
+        IntVector s0 = a.lanewise(VectorOperators.ROR, 2)
+            .lanewise(VectorOperators.XOR, a.lanewise(VectorOperators.ROR, 13))
+            .lanewise(VectorOperators.XOR, a.lanewise(VectorOperators.ROR, 22));
+        IntVector maj = a.and(b).or(c.and(a.or(b)));
+        h = g;
+        g = f;
+        f = e;
+        e = d.add(t1);
+        d = c;
+        c = b;
+        b = a;
+        a = t1.add(s0).add(maj);
+      } // for
+      h0 = h0.add(a);
+      h1 = h1.add(b);
+      h2 = h2.add(c);
+      h3 = h3.add(d);
+      h4 = h4.add(e);
+      h5 = h5.add(f);
+      h6 = h6.add(g);
+      h7 = h7.add(h);
+    } // for
+
+    h0.intoArray(this.chain, 0);
+    h1.intoArray(this.chain, n);
+    h2.intoArray(this.chain, 2 * n);
+    h3.intoArray(this.chain, 3 * n);
+    h4.intoArray(this.chain, 4 * n);
+    h5.intoArray(this.chain, 5 * n);
+    h6.intoArray(this.chain, 6 * n);
+    h7.intoArray(this.chain, 7 * n);
+    for (int j = 0; j < 8; j++) {
+      for (int l = 0; l < n; l++) {
+        Sha256.putInt(out, l * Sha256.DIGEST_LENGTH + 4 * j, this.chain[j * n + l]);
+      } // for
+    } // for
+  } // hash(long, byte[])
+} // class Sha256Lanes
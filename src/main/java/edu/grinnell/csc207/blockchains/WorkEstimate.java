@@ -0,0 +1,245 @@
+package edu.grinnell.csc207.blockchains;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.time.Duration;
+import java.util.SplittableRandom;
+
+/**
+ * How much work it takes to mine a block under a validator. For a DifficultyValidator we
+ * know the chance that a hash is accepted exactly: the target plus one, over 2^256. For
+ * any other validator we try it on random digests and count how many it accepts. When it
+ * accepts none, all we know is that the chance is small, so we report an upper bound on
+ * the chance (and so a lower bound on the work) instead of an estimate.
+ *
+ * <p>Combined with a hash rate, such as a miner's, an estimate tells how long a block
+ * should take, and how likely it is to be done within a deadline.
+ *
+ * @author Moise Milenge
+ * @author Tiffany Yan
+ */
+public final class WorkEstimate {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The number of random digests we try by default.
+   */
+  public static final int DEFAULT_SAMPLES = 1 << 16;
+
+  /**
+   * The chance of no hits in n samples is below 5% once the real chance is 3/n, which
+   * is the upper bound we report when we see no hits.
+   */
+  private static final double NO_HITS_BOUND = 3.0;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The chance that one hash is accepted.
+   */
+  private final double probability;
+
+  /**
+   * Whether we computed the chance rather than sampled it.
+   */
+  private final boolean exact;
+
+  /**
+   * Whether the chance is only an upper bound, because sampling found no hits.
+   */
+  private final boolean bound;
+
+  /**
+   * The number of digests we tried, or 0 if the chance is exact.
+   */
+  private final int samples;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create an estimate.
+   *
+   * @param probabilities The chance that one hash is accepted.
+   * @param exacts Whether we computed the chance rather than sampled it.
+   * @param bounds Whether the chance is only an upper bound.
+   * @param sampled The number of digests we tried.
+   */
+  private WorkEstimate(double probabilities, boolean exacts, boolean bounds, int sampled) {
+    this.probability = probabilities;
+    this.exact = exacts;
+    this.bound = bounds;
+    this.samples = sampled;
+  } // WorkEstimate(double, boolean, boolean, int)
+
+  // +----------------+----------------------------------------------
+  // | Static methods |
+  // +----------------+
+
+  /**
+   * Estimate the work for a validator, trying DEFAULT_SAMPLES random 32-byte digests if
+   * we cannot compute it.
+   *
+   * @param check The validator.
+   * @return the estimate.
+   * @throws IllegalArgumentException if the validator is null.
+   */
+  public static WorkEstimate of(HashValidator check) {
+    return of(check, Sha256.DIGEST_LENGTH, DEFAULT_SAMPLES);
+  } // of(HashValidator)
+
+  /**
+   * Estimate the work for a validator.
+   *
+   * @param check The validator.
+   * @param digestLength The length of the digests the validator will see.
+   * @param samples How many random digests to try if we cannot compute the chance.
+   * @return the estimate.
+   * @throws IllegalArgumentException if the validator is null or samples is not
+   *   positive.
+   */
+  public static WorkEstimate of(HashValidator check, int digestLength, int samples) {
+    if (check == null) {
+      throw new IllegalArgumentException("HashValidator cannot be null.");
+    } // if
+    if (samples < 1) {
+      throw new IllegalArgumentException("We need at least one sample.");
+    } // if
+    if ((check instanceof DifficultyValidator)
+        && (digestLength * Byte.SIZE == DifficultyValidator.DIGEST_BITS)) {
+      BigDecimal accepted = new BigDecimal(
+          ((DifficultyValidator) check).getTargetValue().add(BigInteger.ONE));
+      BigDecimal all = new BigDecimal(BigInteger.ONE.shiftLeft(
+          DifficultyValidator.DIGEST_BITS));
+      return new WorkEstimate(accepted.divide(all, MathContext.DECIMAL64).doubleValue(),
+          true, false, 0);
+    } // if
+
+    SplittableRandom random = new SplittableRandom();
+    byte[] digest = new byte[digestLength];
+    int hits = 0;
+    for (int i = 0; i < samples; i++) {
+      for (int j = 0; j < digestLength; j += Long.BYTES) {
+        long word = random.nextLong();
+        for (int k = j; k < Math.min(j + Long.BYTES, digestLength); k++) {
+          digest[k] = (byte) word;
+          word >>>= Byte.SIZE;
+        } // for
+      } // for
+      if (check.isValid(digest, 0, digestLength)) {
+        hits++;
+      } // if
+    } // for
+    if (hits == 0) {
+      return new WorkEstimate(Math.min(1, NO_HITS_BOUND / samples), false, true, samples);
+    } // if
+    return new WorkEstimate((double) hits / samples, false, false, samples);
+  } // of(HashValidator, int, int)
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Get the chance that one hash is accepted.
+   *
+   * @return the chance, or an upper bound on it if isUpperBound().
+   */
+  public double getProbability() {
+    return this.probability;
+  } // getProbability()
+
+  /**
+   * Determine whether we computed the chance rather than sampled it.
+   *
+   * @return true if the chance is exact.
+   */
+  public boolean isExact() {
+    return this.exact;
+  } // isExact()
+
+  /**
+   * Determine whether the chance is only an upper bound, because the validator accepted
+   * none of the digests we tried. The real work may be much larger.
+   *
+   * @return true if the chance is an upper bound.
+   */
+  public boolean isUpperBound() {
+    return this.bound;
+  } // isUpperBound()
+
+  /**
+   * Get the number of random digests we tried.
+   *
+   * @return the number of samples, or 0 if the chance is exact.
+   */
+  public int getSamples() {
+    return this.samples;
+  } // getSamples()
+
+  /**
+   * Get the number of hashes we expect a block to take.
+   *
+   * @return the expected number of attempts, or a lower bound on it if isUpperBound().
+   */
+  public double getExpectedAttempts() {
+    return 1 / this.probability;
+  } // getExpectedAttempts()
+
+  /**
+   * Get how long we expect a block to take at a hash rate.
+   *
+   * @param hashesPerSecond The hash rate.
+   * @return the expected time, or null if the hash rate is not positive.
+   */
+  public Duration getEta(double hashesPerSecond) {
+    if (!(hashesPerSecond > 0)) {
+      return null;
+    } // if
+    double nanos = getExpectedAttempts() / hashesPerSecond * 1e9;
+    return (nanos >= Long.MAX_VALUE) ? Duration.ofNanos(Long.MAX_VALUE)
+        : Duration.ofNanos((long) nanos);
+  } // getEta(double)
+
+  /**
+   * Get how long we expect a block to take at the hash rate a miner has measured.
+   *
+   * @param stats The miner's statistics.
+   * @return the expected time, or null if the miner has not searched yet.
+   */
+  public Duration getEta(MiningStats stats) {
+    return getEta(stats.getHashesPerSecond());
+  } // getEta(MiningStats)
+
+  /**
+   * Find the chance that a block is found within a deadline at a hash rate.
+   *
+   * @param deadline How long we may mine.
+   * @param hashesPerSecond The hash rate.
+   * @return the chance of finding a block in time, which is an upper bound if
+   *   isUpperBound().
+   */
+  public double probabilityWithin(Duration deadline, double hashesPerSecond) {
+    double attempts = Math.max(0, hashesPerSecond) * (deadline.toNanos() / 1e9);
+    if (attempts == 0) {
+      return 0;
+    } // if
+    return -Math.expm1(attempts * Math.log1p(-this.probability));
+  } // probabilityWithin(Duration, double)
+
+  /**
+   * Get a string representation of the estimate.
+   *
+   * @return a string representation of the estimate.
+   */
+  public String toString() {
+    return String.format("%s%.4g hashes per block (%s)", this.bound ? "at least " : "",
+        getExpectedAttempts(), this.exact ? "exact" : this.samples + " samples");
+  } // toString()
+} // class WorkEstimate
@@ -8,7 +8,12 @@ import java.util.Iterator;
 
 import edu.grinnell.csc207.blockchains.Block;
 import edu.grinnell.csc207.blockchains.BlockChain;
+import edu.grinnell.csc207.blockchains.DifficultyValidator;
+import edu.grinnell.csc207.blockchains.DigestEngine;
 import edu.grinnell.csc207.blockchains.HashValidator;
+import edu.grinnell.csc207.blockchains.Miner;
+import edu.grinnell.csc207.blockchains.MiningStats;
+import edu.grinnell.csc207.blockchains.NonceCache;
 import edu.grinnell.csc207.blockchains.Transaction;
 import edu.grinnell.csc207.util.IOUtils;
 
@@ -49,6 +54,7 @@ public class BlockChainUI {
           balance: finds a user's balance
           transactions: prints out the chain of transactions
           blocks: prints out the chain of blocks (for debugging only)
+          stats: prints hashing statistics for the miner
           help: prints this list of commands
           quit: quits the program""");
   } // instructions(PrintWriter)
@@ -60,25 +66,21 @@ public class BlockChainUI {
   /**
    * Run the UI.
    *
-   * @param args Command-line arguments (currently ignored).
+   * @param args Command-line arguments: optionally, the name of the digest engine, such
+   *   as SHA-256, SHA-256/JDK, SHA-256/Java, or SHA3-256/JDK.
    */
   public static void main(String[] args) throws Exception {
     PrintWriter pen = new PrintWriter(System.out, true);
     BufferedReader eyes = new BufferedReader(new InputStreamReader(System.in));
 
     // Set up our blockchain.
-    HashValidator validator = (h) -> {
-      if (h.length() < VALIDATOR_BYTES) {
-        return false;
-      } // if
-      for (int v = 0; v < VALIDATOR_BYTES; v++) {
-        if (h.get(v) != 0) {
-          return false;
-        } // if
-      } // for
-      return true;
-    };
-    BlockChain chain = new BlockChain(validator);
+    HashValidator validator = new DifficultyValidator(VALIDATOR_BYTES * Byte.SIZE);
+    DigestEngine engine = (args.length > 0) ? DigestEngine.forName(args[0])
+        : DigestEngine.SHA_256;
+    Miner miner = new Miner();
+    NonceCache nonces = new NonceCache();
+    miner.setNonceCache(nonces);
+    BlockChain chain = new BlockChain(validator, miner, engine);
 
     instructions(pen);
 
@@ -97,8 +99,11 @@ public class BlockChainUI {
           String source = IOUtils.readLine(pen, eyes, "Source (return for deposit): ");
           String target = IOUtils.readLine(pen, eyes, "Target: ");
           int amount = IOUtils.readInt(pen, eyes, "Amount: ");
+          long hits = nonces.getHits();
           Block minedBlock = chain.mine(new Transaction(source, target, amount));
           pen.println("Mined block with nonce: " + minedBlock.getNonce());
+          pen.println((nonces.getHits() > hits) ? "Nonce found in the cache."
+              : chain.getMiner().getStats().getLast());
           break;
 
         case "append":
@@ -154,6 +159,21 @@ public class BlockChainUI {
           } // while
           break;
 
+        case "stats":
+          MiningStats stats = chain.getMiner().getStats();
+          pen.println("Mining statistics: " + stats);
+          pen.println("Nonce cache: " + nonces);
+          long[] histogram = stats.getAttemptHistogram();
+          for (int i = 0; i < histogram.length; i++) {
+            if (histogram[i] > 0) {
+              // The top buckets run to the largest long rather than overflowing.
+              long low = 1L << Math.min(i, Long.SIZE - 2);
+              long high = (i >= Long.SIZE - 2) ? Long.MAX_VALUE : (2L << i) - 1;
+              pen.printf("- %d to %d hashes: %d blocks\n", low, high, histogram[i]);
+            } // if
+          } // for
+          break;
+
         case "help":
           instructions(pen);
           break;
@@ -0,0 +1,101 @@
+package edu.grinnell.csc207.blockchains;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures how much heap a long chain takes for each block, and how long a full garbage
+ * collection takes with the chain alive. Blocks are built outside the chain, each with
+ * its own copy of the previous hash, and then appended, so the chain keeps one copy of
+ * each hash. For comparison, we build the chain again and keep the copies, which is
+ * what the chain would hold if it did not share hashes, and once more with the hashes
+ * off the heap. Every hash is valid, so nothing is mined. Run it with, for example
+ *
+ * <pre>
+ *   java -Xmx4g -cp target/classes:target/test-classes \
+ *       edu.grinnell.csc207.blockchains.ChainMemoryBenchmark [blocks]
+ * </pre>
+ *
+ * @author Moise Milenge
+ * @author Tiffany Yan
+ */
+public class ChainMemoryBenchmark {
+  /**
+   * Run the benchmark.
+   *
+   * @param args The number of blocks (default: 1,000,000).
+   */
+  public static void main(String[] args) {
+    PrintWriter pen = new PrintWriter(System.out, true);
+    int blocks = (args.length > 0) ? Integer.parseInt(args[0]) : 1_000_000;
+
+    long shared = measure(pen, "previous hashes shared", blocks, null, false);
+    long copied = measure(pen, "previous hashes copied", blocks, new ArrayList<>(blocks),
+        false);
+    long offHeap = measure(pen, "hashes off the heap", blocks, null, true);
+    pen.printf("Sharing saves %.1f bytes/block; moving hashes off the heap saves %.1f more%n",
+        (double) (copied - shared) / blocks, (double) (shared - offHeap) / blocks);
+  } // main(String[])
+
+  /**
+   * Build a chain and print how much heap it takes and how long a full collection takes
+   * while it is alive.
+   *
+   * @param pen Where to print.
+   * @param label What to call the chain.
+   * @param blocks The number of blocks.
+   * @param copies Where to keep copies of the previous hashes, or null.
+   * @param offHeap Whether the chain keeps its hashes off the heap.
+   * @return the number of bytes of heap the chain (and the copies) take.
+   */
+  static long measure(PrintWriter pen, String label, int blocks, List<Hash> copies,
+      boolean offHeap) {
+    long before = usedHeap();
+    BlockChain chain = build(blocks, copies, offHeap);
+    long used = usedHeap() - before;
+    long start = System.nanoTime();
+    System.gc();
+    long pause = System.nanoTime() - start;
+    pen.printf("%,d blocks, %-22s: %,14d bytes, %6.1f bytes/block, %,d bytes off the heap,"
+        + " full collection %.1f ms%n", chain.getSize(), label, used, (double) used / blocks,
+        chain.getOffHeapBytes(), pause / 1e6);
+    return used;
+  } // measure(PrintWriter, String, int, List<Hash>, boolean)
+
+  /**
+   * Build a chain from blocks that each have their own copy of the previous hash.
+   *
+   * @param blocks The number of blocks.
+   * @param copies Where to keep the copies after the chain drops them, or null to let
+   *   them go.
+   * @param offHeap Whether the chain keeps its hashes off the heap.
+   * @return the chain.
+   */
+  static BlockChain build(int blocks, List<Hash> copies, boolean offHeap) {
+    Transaction t = new Transaction("", "Someone", 1);
+    BlockChain chain = new BlockChain((h) -> true, new Miner(1), DigestEngine.SHA_256,
+        offHeap);
+    for (int i = 1; i < blocks; i++) {
+      Hash prev = new Hash(chain.getHash().getBytes());
+      chain.append(new Block(i, t, prev, 0));
+      if (copies != null) {
+        copies.add(prev);
+      } // if
+    } // for
+    return chain;
+  } // build(int, List<Hash>, boolean)
+
+  /**
+   * Find how much of the heap is in use, after collecting the garbage.
+   *
+   * @return the number of bytes in use.
+   */
+  static long usedHeap() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    } // for
+    return runtime.totalMemory() - runtime.freeMemory();
+  } // usedHeap()
+} // class ChainMemoryBenchmark
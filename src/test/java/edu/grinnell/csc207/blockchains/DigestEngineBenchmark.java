@@ -0,0 +1,60 @@
+package edu.grinnell.csc207.blockchains;
+
+import java.io.PrintWriter;
+
+/**
+ * Compares how fast the digest engines hash one block with nonce after nonce, for short
+ * and long blocks, on one thread. Run it with
+ *
+ * <pre>
+ *   java -cp target/classes:target/test-classes \
+ *       edu.grinnell.csc207.blockchains.DigestEngineBenchmark [seconds]
+ * </pre>
+ *
+ * @author Moise Milenge
+ * @author Tiffany Yan
+ */
+public class DigestEngineBenchmark {
+  /**
+   * Run the benchmark.
+   *
+   * @param args The number of seconds to spend on each measurement (default: 2).
+   */
+  public static void main(String[] args) {
+    PrintWriter pen = new PrintWriter(System.out, true);
+    long nanos = (long) ((args.length > 0) ? Double.parseDouble(args[0]) * 1e9 : 2e9);
+    for (int len : new int[] {48, 128, 512, 1024}) {
+      byte[] prefix = new byte[len];
+      for (DigestEngine engine : new DigestEngine[] {DigestEngine.SHA_256,
+          DigestEngine.JDK_SHA_256, DigestEngine.JAVA_SHA_256, DigestEngine.SHA3_256}) {
+        // Once to warm up, once to measure.
+        measure(engine, prefix, nanos / 4);
+        pen.printf("%5d-byte prefix, %-13s: %,12.0f hashes/s%n", len, engine.getName(),
+            measure(engine, prefix, nanos));
+      } // for
+    } // for
+  } // main(String[])
+
+  /**
+   * Hash nonce after nonce for a while.
+   *
+   * @param engine The engine to measure.
+   * @param prefix The bytes before the nonce.
+   * @param nanos How long to hash for.
+   * @return the number of hashes per second.
+   */
+  static double measure(DigestEngine engine, byte[] prefix, long nanos) {
+    DigestEngine.Hasher hasher = engine.newHasher(prefix);
+    byte[] out = new byte[engine.getDigestLength()];
+    long start = System.nanoTime();
+    long nonce = 0;
+    long elapsed;
+    do {
+      for (int i = 0; i < 1024; i++) {
+        hasher.hash(nonce++, out);
+      } // for
+      elapsed = System.nanoTime() - start;
+    } while (elapsed < nanos);
+    return nonce * 1e9 / elapsed;
+  } // measure(DigestEngine, byte[], long)
+} // class DigestEngineBenchmark
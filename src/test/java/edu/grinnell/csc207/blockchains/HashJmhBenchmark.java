@@ -0,0 +1,195 @@
+package edu.grinnell.csc207.blockchains;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH measurements of how long it takes to hash one block, and to compare hashes. Run
+ * it with mvn -P jmh verify -Djmh.args=HashJmhBenchmark.
+ *
+ * @author Moise Milenge
+ * @author Tiffany Yan
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class HashJmhBenchmark {
+  /**
+   * The length of the names in the transaction.
+   */
+  @Param({"8", "800"})
+  public int nameLength;
+
+  /**
+   * The transaction in the block.
+   */
+  Transaction transaction;
+
+  /**
+   * The hash of the previous block.
+   */
+  Hash prevHash;
+
+  /**
+   * Hashes the block with one nonce after another.
+   */
+  DigestEngine.Hasher hasher;
+
+  /**
+   * Where the hasher puts its digests.
+   */
+  byte[] digest;
+
+  /**
+   * Two equal hashes that do not share their bytes.
+   */
+  Hash first;
+
+  /**
+   * The other one.
+   */
+  Hash second;
+
+  /**
+   * The first hash as hex.
+   */
+  String hex;
+
+  /**
+   * A digest to feed hashes to.
+   */
+  MessageDigest md;
+
+  /**
+   * The next nonce to try.
+   */
+  long nonce;
+
+  /**
+   * Build the block and the hashes.
+   */
+  @Setup
+  public void setup() throws NoSuchAlgorithmException {
+    this.transaction = new Transaction("S".repeat(this.nameLength),
+        "T".repeat(this.nameLength), 17);
+    this.prevHash = new Hash(new byte[Sha256.DIGEST_LENGTH]);
+    BlockTemplate template = new BlockTemplate(5, this.transaction, this.prevHash);
+    this.hasher = template.newHasher();
+    this.digest = new byte[Sha256.DIGEST_LENGTH];
+    this.first = template.hash(1);
+    this.second = new Hash(this.first.getBytes());
+    this.hex = this.first.toString();
+    this.md = MessageDigest.getInstance("SHA-256");
+  } // setup()
+
+  /**
+   * Build a block from scratch, which hashes it once.
+   *
+   * @return the block.
+   */
+  @Benchmark
+  public Block block() {
+    return new Block(5, this.transaction, this.prevHash, this.nonce++);
+  } // block()
+
+  /**
+   * Hash the block with one more nonce, as the miners do.
+   *
+   * @return the digest.
+   */
+  @Benchmark
+  public byte[] nonce() {
+    this.hasher.hash(this.nonce++, this.digest);
+    return this.digest;
+  } // nonce()
+
+  /**
+   * Compare two equal hashes.
+   *
+   * @return true.
+   */
+  @Benchmark
+  public boolean hashEquals() {
+    return this.first.equals(this.second);
+  } // hashEquals()
+
+  /**
+   * Compute the hash code of a hash.
+   *
+   * @return the hash code.
+   */
+  @Benchmark
+  public int hashHashCode() {
+    return this.first.hashCode();
+  } // hashHashCode()
+
+  /**
+   * Write a hash we have not written before as hex.
+   *
+   * @return the hex string.
+   */
+  @Benchmark
+  public String hashToString() {
+    return new Hash(this.digest).toString();
+  } // hashToString()
+
+  /**
+   * Read a hash from hex.
+   *
+   * @return the hash.
+   */
+  @Benchmark
+  public Hash hashFromHex() {
+    return Hash.fromHex(this.hex);
+  } // hashFromHex()
+
+  /**
+   * Copy a hash into an array, as we do when we build a header.
+   *
+   * @return the array.
+   */
+  @Benchmark
+  public byte[] hashWriteTo() {
+    this.first.writeTo(this.digest, 0);
+    return this.digest;
+  } // hashWriteTo()
+
+  /**
+   * Feed a hash to a message digest, as we do when we hash a previous hash that is not
+   * as long as a digest. Run with -prof gc to see that it allocates nothing.
+   *
+   * @return the digest.
+   */
+  @Benchmark
+  public MessageDigest hashWriteToDigest() {
+    this.first.writeTo(this.md);
+    this.md.reset();
+    return this.md;
+  } // hashWriteToDigest()
+
+  /**
+   * Compare two equal hashes, which looks at every byte.
+   *
+   * @return the comparison.
+   */
+  @Benchmark
+  public int hashCompareTo() {
+    return this.first.compareTo(this.second);
+  } // hashCompareTo()
+} // class HashJmhBenchmark
@@ -0,0 +1,91 @@
+package edu.grinnell.csc207.blockchains;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH measurements of hashing a block header with one nonce after another: with
+ * MessageDigest, with our general SHA-256 restoring a midstate, and with the SHA-256
+ * written out for headers. Run it with mvn -P jmh verify -Djmh.args=HeaderJmhBenchmark.
+ *
+ * @author Moise Milenge
+ * @author Tiffany Yan
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class HeaderJmhBenchmark {
+  /**
+   * How we hash the header: "jdk", "midstate", or "header".
+   */
+  @Param({"jdk", "midstate", "header"})
+  public String hasher;
+
+  /**
+   * Hashes the header with one nonce after another.
+   */
+  DigestEngine.Hasher hashes;
+
+  /**
+   * Where the hasher puts its digests.
+   */
+  byte[] digest;
+
+  /**
+   * The next nonce to try.
+   */
+  long nonce;
+
+  /**
+   * Build the header and the hasher.
+   */
+  @Setup
+  public void setup() {
+    byte[] prefix = new BlockTemplate(5, new Transaction("Source", "Target", 17),
+        new Hash(new byte[Sha256.DIGEST_LENGTH])).prefix();
+    this.digest = new byte[Sha256.DIGEST_LENGTH];
+    switch (this.hasher) {
+      case "jdk":
+        this.hashes = DigestEngine.JDK_SHA_256.newHasher(prefix);
+        break;
+      case "midstate":
+        Sha256 sha = new Sha256();
+        sha.update(prefix, 0, prefix.length);
+        sha.mark();
+        this.hashes = (n, out) -> {
+          sha.restore();
+          sha.updateLong(n);
+          sha.digest(out, 0);
+        };
+        break;
+      default:
+        this.hashes = new Sha256Header(prefix);
+        break;
+    } // switch
+  } // setup()
+
+  /**
+   * Hash the header with one more nonce.
+   *
+   * @return the digest.
+   */
+  @Benchmark
+  public byte[] nonce() {
+    this.hashes.hash(this.nonce++, this.digest);
+    return this.digest;
+  } // nonce()
+} // class HeaderJmhBenchmark
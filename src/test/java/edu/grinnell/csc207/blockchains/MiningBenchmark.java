@@ -0,0 +1,66 @@
+package edu.grinnell.csc207.blockchains;
+
+import java.io.PrintWriter;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Compares the hash rate of the scalar and vectorized miners on the same number of
+ * threads. Run it with the vector module loaded, for example
+ *
+ * <pre>
+ *   java --add-modules jdk.incubator.vector -cp target/classes:target/test-classes \
+ *       edu.grinnell.csc207.blockchains.MiningBenchmark [threads] [seconds]
+ * </pre>
+ *
+ * @author Moise Milenge
+ * @author Tiffany Yan
+ */
+public class MiningBenchmark {
+  /**
+   * Run the benchmark.
+   *
+   * @param args The number of threads (default: one per processor) and the number of
+   *   seconds to spend on each measurement (default: 3).
+   */
+  public static void main(String[] args) {
+    PrintWriter pen = new PrintWriter(System.out, true);
+    int threads = (args.length > 0) ? Integer.parseInt(args[0])
+        : Runtime.getRuntime().availableProcessors();
+    long nanos = (long) ((args.length > 1) ? Double.parseDouble(args[1]) * 1e9 : 3e9);
+    if (!BlockTemplate.lanesAvailable()) {
+      pen.println("Vectors unavailable; start the JVM with --add-modules jdk.incubator.vector.");
+    } // if
+
+    for (String name : new String[] {"Someone", "Someone ".repeat(100)}) {
+      BlockTemplate template = new BlockTemplate(1, new Transaction("", name, 5),
+          new Hash(new byte[Sha256.DIGEST_LENGTH]));
+      for (boolean vector : new boolean[] {false, true}) {
+        Miner miner = new Miner(threads, vector);
+        // Once to warm up, once to measure.
+        measure(miner, template, nanos / 3);
+        double rate = measure(miner, template, nanos);
+        pen.printf("%4d-byte prefix, %d threads, %-6s: %,14.0f hashes/s%n",
+            template.prefix().length, threads, miner.isVectorized() ? "vector" : "scalar",
+            rate);
+      } // for
+    } // for
+  } // main(String[])
+
+  /**
+   * Mine with a validator that accepts nothing for a while.
+   *
+   * @param miner The miner to measure.
+   * @param template The block to mine.
+   * @param nanos How long to mine for.
+   * @return the number of hashes per second.
+   */
+  static double measure(Miner miner, BlockTemplate template, long nanos) {
+    long deadline = System.nanoTime() + nanos;
+    try {
+      miner.search(template, (h) -> false, () -> System.nanoTime() > deadline);
+    } catch (CancellationException e) {
+      // That is how every search ends.
+    } // try/catch
+    return miner.getStats().getLast().getHashesPerSecond();
+  } // measure(Miner, BlockTemplate, long)
+} // class MiningBenchmark
@@ -0,0 +1,119 @@
+package edu.grinnell.csc207.blockchains;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH measurements of mining whole blocks at several difficulties and thread counts.
+ * The primary score is blocks per second; the hashes counter gives the hash rate. Run
+ * it with mvn -P jmh verify -Djmh.args=MiningJmhBenchmark.
+ *
+ * @author Moise Milenge
+ * @author Tiffany Yan
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class MiningJmhBenchmark {
+  /**
+   * The number of leading zero bits blocks need.
+   */
+  @Param({"8", "12", "16"})
+  public int bits;
+
+  /**
+   * The number of worker threads.
+   */
+  @Param({"1", "4"})
+  public int threads;
+
+  /**
+   * Whether the workers hash several nonces at once.
+   */
+  @Param({"false", "true"})
+  public boolean vector;
+
+  /**
+   * The miner.
+   */
+  Miner miner;
+
+  /**
+   * The validator.
+   */
+  HashValidator validator;
+
+  /**
+   * The hash the blocks follow.
+   */
+  Hash prevHash;
+
+  /**
+   * The number of the next block, so that no two searches are the same.
+   */
+  int number;
+
+  /**
+   * Build the miner and validator.
+   */
+  @Setup
+  public void setup() {
+    this.miner = new Miner(this.threads, this.vector);
+    this.validator = new DifficultyValidator(this.bits);
+    this.prevHash = new Hash(new byte[Sha256.DIGEST_LENGTH]);
+  } // setup()
+
+  /**
+   * Mine one block.
+   *
+   * @param counters Where we count the hashes.
+   * @return the nonce.
+   */
+  @Benchmark
+  public long mine(Hashes counters) {
+    long nonce = this.miner.search(new BlockTemplate(this.number++,
+        new Transaction("", "Miner", 1), this.prevHash), this.validator);
+    counters.hashes += this.miner.getStats().getLast().getAttempts();
+    return nonce;
+  } // mine(Hashes)
+
+  // +---------------+-----------------------------------------------
+  // | Inner classes |
+  // +---------------+
+
+  /**
+   * Counts the hashes computed, which JMH reports as a rate next to the blocks.
+   */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  public static class Hashes {
+    /**
+     * The number of hashes computed in this iteration.
+     */
+    public long hashes;
+
+    /**
+     * Start each iteration from zero.
+     */
+    @Setup(Level.Iteration)
+    public void reset() {
+      this.hashes = 0;
+    } // reset()
+  } // class Hashes
+} // class MiningJmhBenchmark
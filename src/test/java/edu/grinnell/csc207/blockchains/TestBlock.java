@@ -7,6 +7,9 @@ import java.security.NoSuchAlgorithmException;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
@@ -78,11 +81,22 @@ public class TestBlock {
    * @return the expected hash of that block.
    */
   static byte[] expectedHash(Block block) {
-    md.update(intToBytes(block.getNum()));
-    md.update(block.getTransaction().getSource().getBytes());
-    md.update(block.getTransaction().getTarget().getBytes());
+    byte[] source = block.getTransaction().getSource().getBytes();
+    byte[] target = block.getTransaction().getTarget().getBytes();
+    md.update(intToBytes(source.length));
+    md.update(source);
+    md.update(intToBytes(target.length));
+    md.update(target);
     md.update(intToBytes(block.getTransaction().getAmount()));
-    md.update(block.getPrevHash().getBytes());
+    byte[] transaction = md.digest();
+    byte[] prev = block.getPrevHash().getBytes();
+    if (prev.length != 32) {
+      prev = md.digest(prev);
+    } // if
+
+    md.update(intToBytes(block.getNum()));
+    md.update(prev);
+    md.update(transaction);
     md.update(longToBytes(block.getNonce()));
     return md.digest();
   } // expectedHash()
@@ -213,6 +227,75 @@ public class TestBlock {
     assertArrayEquals(expectedHash(b), b.getHash().getBytes(), "correct hash");
   } // hashTest()
 
+  /**
+   * Ensure that the block calculates the correct hash when the transaction is longer
+   * than a single SHA-256 block.
+   */
+  @Test
+  public void longTransactionHashTest() {
+    Transaction t = new Transaction("Source ".repeat(20), "Target ".repeat(30), 123456);
+    Hash ph = new Hash(new byte[32]);
+    Block b = new Block(17, t, ph, 98765);
+    assertArrayEquals(expectedHash(b), b.getHash().getBytes(), "correct long hash");
+
+    Block mined = new Block(17, t, ph, (h) -> (h.length() > 0) && (h.get(0) == 0));
+    assertArrayEquals(expectedHash(mined), mined.getHash().getBytes(),
+        "correct long hash in validated block");
+  } // longTransactionHashTest()
+
+  /**
+   * Ensure that headers have the same length however long the transaction is, and that
+   * they hash to the block's hash.
+   */
+  @Test
+  public void headerTest() {
+    Hash ph = new Hash(new byte[32]);
+    Block small = new Block(3, new Transaction("", "A", 1), ph, 42);
+    Block large = new Block(3, new Transaction("Source ".repeat(50), "B", 1), ph, 42);
+    assertEquals(76, small.getHeader().toBytes().length, "length of a SHA-256 header");
+    assertEquals(76, large.getHeader().toBytes().length, "length with a long transaction");
+    assertEquals(small.getHash(), small.getHeader().computeHash(), "header hash");
+    assertEquals(large.getHash(), large.getHeader().computeHash(), "long header hash");
+  } // headerTest()
+
+  /**
+   * Ensure that a header read from its bytes checks out on its own.
+   */
+  @Test
+  public void headerBytesTest() {
+    Transaction t = new Transaction("Sam", "Sam", 50);
+    Hash ph = new Hash(new byte[] {10, 20, 30});
+    Block b = new Block(5, t, ph, 100, DigestEngine.SHA3_256);
+    BlockHeader header = BlockHeader.fromBytes(b.getHeader().toBytes(), DigestEngine.SHA3_256);
+    assertEquals(5, header.getNum(), "number in header");
+    assertEquals(100, header.getNonce(), "nonce in header");
+    assertEquals(b.getHash(), header.computeHash(), "hash from header");
+    assertTrue(header.holds(t), "header holds its transaction");
+    assertFalse(header.holds(new Transaction("Sam", "Sam", 51)), "not another transaction");
+    assertTrue(header.follows(ph), "header follows its previous hash");
+    assertFalse(header.follows(new Hash(new byte[] {10, 20})), "not another one");
+    assertThrows(IllegalArgumentException.class,
+        () -> BlockHeader.fromBytes(new byte[75], DigestEngine.SHA_256), "short header");
+  } // headerBytesTest()
+
+  /**
+   * Ensure that transactions whose names run together the same way have different
+   * digests.
+   */
+  @Test
+  public void transactionDigestTest() {
+    Transaction t = new Transaction("ab", "c", 5);
+    Transaction u = new Transaction("a", "bc", 5);
+    for (DigestEngine engine : new DigestEngine[] {DigestEngine.SHA_256,
+        DigestEngine.SHA3_256}) {
+      assertFalse(BlockHeader.transactionDigest(t, engine).equals(
+          BlockHeader.transactionDigest(u, engine)), "different digests");
+      Block b = new Block(1, t, new Hash(new byte[32]), 7, engine);
+      assertTrue(b.getHeader().holds(t), "header holds its transaction");
+      assertFalse(b.getHeader().holds(u), "not one with the names split differently");
+    } // for
+  } // transactionDigestTest()
+
   /**
    * Ensure that a block with a validated hash calculates a correct
    * and valid hash.
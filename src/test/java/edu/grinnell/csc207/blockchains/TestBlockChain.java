@@ -1,6 +1,19 @@
 package edu.grinnell.csc207.blockchains;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.junit.jupiter.api.Test;
 
@@ -11,4 +24,193 @@ import org.junit.jupiter.api.Test;
  * @author Samuel A. Rebelsky
  */
 public class TestBlockChain {
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Build a validator that wants one zero byte until we make it impossible to satisfy.
+   *
+   * @param impossible
+   *   Set to make the validator reject everything.
+   *
+   * @return the validator.
+   */
+  static HashValidator switchable(AtomicBoolean impossible) {
+    return (h) -> !impossible.get() && (h.length() > 0) && (h.get(0) == 0);
+  } // switchable(AtomicBoolean)
+
+  // +-------+-------------------------------------------------------
+  // | Tests |
+  // +-------+
+
+  /**
+   * Blocks mined asynchronously can be appended.
+   */
+  @Test
+  public void mineAsyncTest() throws Exception {
+    BlockChain chain = new BlockChain(switchable(new AtomicBoolean(false)));
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Block b = chain.mineAsync(new Transaction("", "Async", 20), executor).get();
+      chain.append(b);
+      chain.check();
+      assertEquals(2, chain.getSize(), "size after appending async block");
+      assertEquals(20, chain.balance("Async"), "balance after async block");
+      assertArrayEquals(new Block(1, b.getTransaction(), b.getPrevHash(), b.getNonce())
+          .getHash().getBytes(), b.getHash().getBytes(), "hash of async block");
+    } finally {
+      executor.shutdown();
+    } // try/finally
+  } // mineAsyncTest()
+
+  /**
+   * Cancelling an asynchronous mine stops the hashing.
+   */
+  @Test
+  public void cancelTest() throws Exception {
+    AtomicBoolean impossible = new AtomicBoolean(false);
+    BlockChain chain = new BlockChain(switchable(impossible), new Miner(2));
+    impossible.set(true);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    CompletableFuture<Block> future = chain.mineAsync(new Transaction("", "Never", 1), executor);
+    Thread.sleep(20);
+    assertTrue(future.cancel(true), "cancelled the mining");
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(1, TimeUnit.SECONDS), "mining stopped");
+  } // cancelTest()
+
+  /**
+   * An asynchronous mine with a deadline fails with a timeout and stops hashing.
+   */
+  @Test
+  public void deadlineTest() throws Exception {
+    AtomicBoolean impossible = new AtomicBoolean(false);
+    BlockChain chain = new BlockChain(switchable(impossible));
+    impossible.set(true);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    CompletableFuture<Block> future =
+        chain.mineAsync(new Transaction("", "Never", 1), Duration.ofMillis(30), executor);
+    ExecutionException e = assertThrows(ExecutionException.class, () -> future.get());
+    assertTrue(e.getCause() instanceof TimeoutException, "timed out");
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(1, TimeUnit.SECONDS), "mining stopped");
+  } // deadlineTest()
+
+  /**
+   * Invalid transactions are rejected before we start mining.
+   */
+  @Test
+  public void invalidAsyncTest() {
+    BlockChain chain = new BlockChain(switchable(new AtomicBoolean(false)));
+    assertThrows(IllegalArgumentException.class,
+        () -> chain.mineAsync(new Transaction("Broke", "Someone", 5)));
+  } // invalidAsyncTest()
+
+  /**
+   * Each block's previous hash is the previous block's hash, not a copy of it.
+   */
+  @Test
+  public void sharedHashTest() throws Exception {
+    BlockChain chain = new BlockChain(switchable(new AtomicBoolean(false)));
+    Hash genesis = chain.getHash();
+    Block mined = chain.mine(new Transaction("", "Alpha", 5));
+    assertSame(genesis, mined.getPrevHash(), "mined");
+    chain.append(mined);
+
+    Hash last = chain.getHash();
+    Block built = new Block(2, new Transaction("", "Beta", 3), new Hash(last.getBytes()),
+        chain.getValidator());
+    Hash hash = built.getHash();
+    chain.append(built);
+    assertSame(last, built.getPrevHash(), "appended");
+    assertSame(last, built.getHeader().getPrevHash(), "header");
+    assertEquals(hash, built.getHeader().computeHash(), "same hash");
+    assertEquals(hash, built.getHash(), "hash unchanged");
+    chain.check();
+    assertThrows(IllegalArgumentException.class,
+        () -> built.sharePrevHash(new Hash(new byte[32])), "not equal");
+  } // sharedHashTest()
+
+  /**
+   * A chain that keeps its hashes off the heap works like any other.
+   */
+  @Test
+  public void offHeapTest() throws Exception {
+    BlockChain chain = new BlockChain(switchable(new AtomicBoolean(false)), new Miner(1),
+        DigestEngine.SHA_256, true);
+    assertTrue(chain.isOffHeap(), "off heap");
+    Hash genesis = chain.getHash();
+    Block first = chain.mine(new Transaction("", "Alpha", 5));
+    Hash firstHash = first.getHash();
+    BlockHeader firstHeader = first.getHeader();
+    chain.append(first);
+    assertEquals(firstHash, first.getHash(), "hash");
+    assertEquals(genesis, first.getPrevHash(), "previous hash");
+    assertEquals(firstHeader.getPrevHash(), first.getHeader().getPrevHash(), "header");
+    assertEquals(firstHash, first.getHeader().computeHash(), "header hash");
+    chain.append(chain.mine(new Transaction("Alpha", "Beta", 2)));
+    Block last = chain.mine(new Transaction("", "Gamma", 1));
+    Hash lastHash = last.getHash();
+    chain.append(last);
+    chain.check();
+    assertTrue(chain.getOffHeapBytes() > 0, "bytes reserved");
+    assertEquals(4, chain.getSize(), "size");
+
+    assertTrue(chain.removeLast(), "removed");
+    Block replacement = chain.mine(new Transaction("", "Delta", 9));
+    chain.append(replacement);
+    assertEquals(lastHash, last.getHash(), "removed block keeps its hash");
+    assertEquals(replacement.getHash(), chain.getHash(), "replacement");
+    chain.check();
+    assertThrows(IllegalArgumentException.class, () -> chain.append(last), "stale block");
+    assertEquals(0, new BlockChain(switchable(new AtomicBoolean(false))).getOffHeapBytes(),
+        "on the heap");
+  } // offHeapTest()
+
+  /**
+   * A block can be in only one chain that keeps its hashes off the heap, and stays
+   * unchanged when a second one rejects it.
+   */
+  @Test
+  public void offHeapTwiceTest() throws Exception {
+    BlockChain one = new BlockChain(switchable(new AtomicBoolean(false)), new Miner(1),
+        DigestEngine.SHA_256, true);
+    BlockChain two = new BlockChain(switchable(new AtomicBoolean(false)), new Miner(1),
+        DigestEngine.SHA_256, true);
+    assertEquals(one.getHash(), two.getHash(), "same genesis block");
+    Block b = one.mine(new Transaction("", "Alpha", 5));
+    Hash hash = b.getHash();
+    one.append(b);
+    assertThrows(IllegalArgumentException.class, () -> two.append(b), "already in one");
+    assertEquals(1, two.getSize(), "not appended");
+    assertEquals(hash, b.getHash(), "hash unchanged");
+    one.check();
+    BlockChain heap = new BlockChain(switchable(new AtomicBoolean(false)));
+    heap.append(b);
+    heap.check();
+    assertEquals(2, heap.getSize(), "a chain on the heap takes it");
+  } // offHeapTwiceTest()
+
+  /**
+   * A block removed from a chain that keeps its hashes off the heap can go on a chain
+   * that keeps them on the heap.
+   */
+  @Test
+  public void offHeapToHeapTest() throws Exception {
+    BlockChain offHeap = new BlockChain(switchable(new AtomicBoolean(false)), new Miner(1),
+        DigestEngine.SHA_256, true);
+    BlockChain heap = new BlockChain(switchable(new AtomicBoolean(false)));
+    assertEquals(offHeap.getHash(), heap.getHash(), "same genesis block");
+    Block b = offHeap.mine(new Transaction("", "Alpha", 5));
+    Hash hash = b.getHash();
+    offHeap.append(b);
+    assertTrue(offHeap.removeLast(), "removed");
+    heap.append(b);
+    heap.check();
+    assertEquals(2, heap.getSize(), "appended");
+    assertEquals(hash, b.getHash(), "hash");
+    assertEquals(hash, b.getHeader().computeHash(), "header rebuilt");
+    assertTrue(b.getPrevHash() == heap.blocks().next().getHash(), "previous hash shared");
+  } // offHeapToHeapTest()
 } // class TestBlockChain
@@ -0,0 +1,153 @@
+package edu.grinnell.csc207.blockchains;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Some simple tests of our DifficultyValidator and RetargetPolicy classes.
+ *
+ * @author Moise Milenge
+ * @author Tiffany Yan
+ */
+public class TestDifficultyValidator {
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Count the leading zero bits of a hash, one bit at a time.
+   *
+   * @param h
+   *   The hash.
+   *
+   * @return the number of leading zero bits.
+   */
+  static int zeroBits(Hash h) {
+    int bits = 0;
+    while ((bits < h.length() * 8) && ((h.get(bits / 8) & (0x80 >>> (bits % 8))) == 0)) {
+      bits++;
+    } // while
+    return bits;
+  } // zeroBits(Hash)
+
+  // +-------+-------------------------------------------------------
+  // | Tests |
+  // +-------+
+
+  /**
+   * Leading-zero validators agree with counting bits.
+   */
+  @Test
+  public void bitsTest() {
+    Random random = new Random(207);
+    for (int i = 0; i < 2000; i++) {
+      byte[] bytes = new byte[32];
+      random.nextBytes(bytes);
+      // Clear a random number of leading bits so that we see some valid hashes.
+      int clear = random.nextInt(200);
+      for (int b = 0; b < clear; b++) {
+        bytes[b / 8] &= (byte) ~(0x80 >>> (b % 8));
+      } // for
+      Hash h = new Hash(bytes);
+      for (int bits : new int[] {0, 1, 8, 24, 63, 64, 65, 130, 199, 256}) {
+        assertEquals(zeroBits(h) >= bits, new DifficultyValidator(bits).isValid(h),
+            bits + " bits for " + h);
+      } // for
+    } // for
+    assertFalse(new DifficultyValidator(0).isValid(new Hash(new byte[] {0, 0})),
+        "short hashes are invalid");
+  } // bitsTest()
+
+  /**
+   * Target validators compare hashes as unsigned numbers.
+   */
+  @Test
+  public void targetTest() {
+    byte[] bytes = new byte[32];
+    bytes[2] = 0x12;
+    bytes[20] = 0x34;
+    DifficultyValidator v = new DifficultyValidator(new Hash(bytes));
+    assertEquals(new Hash(bytes), v.getTarget(), "target round trip");
+    assertEquals(19, v.getBits(), "leading zero bits in target");
+    assertTrue(v.isValid(new Hash(bytes)), "target itself is valid");
+    bytes[31] = 1;
+    assertFalse(v.isValid(new Hash(bytes)), "one more than the target is invalid");
+    bytes[31] = 0;
+    bytes[20] = 0x33;
+    bytes[21] = (byte) 0xFF;
+    assertTrue(v.isValid(new Hash(bytes)), "less than the target is valid");
+    assertEquals(new DifficultyValidator(24),
+        new DifficultyValidator(BigInteger.ONE.shiftLeft(232).subtract(BigInteger.ONE)),
+        "targets of the form 2^n-1 are bit difficulties");
+    assertThrows(IllegalArgumentException.class,
+        () -> new DifficultyValidator(new Hash(new byte[] {1})));
+  } // targetTest()
+
+  /**
+   * Retargeting makes fast chains harder and slow chains easier, within limits.
+   */
+  @Test
+  public void retargetTest() {
+    RetargetPolicy policy = new RetargetPolicy(Duration.ofSeconds(1), 10, 4, 40);
+    DifficultyValidator v = new DifficultyValidator(20);
+    long second = 1_000_000_000L;
+
+    assertEquals(v, policy.retarget(v, 10 * second, 10), "on time");
+    assertEquals(new DifficultyValidator(21), policy.retarget(v, 5 * second, 10), "twice as fast");
+    assertEquals(new DifficultyValidator(19), policy.retarget(v, 20 * second, 10), "half speed");
+    assertEquals(new DifficultyValidator(22), policy.retarget(v, 1, 10), "at most four times");
+    assertEquals(new DifficultyValidator(40),
+        policy.retarget(new DifficultyValidator(39), 1, 10), "at most 40 bits");
+    assertEquals(new DifficultyValidator(4),
+        policy.retarget(new DifficultyValidator(5), 100 * second, 10), "at least 4 bits");
+
+    DifficultyValidator between = policy.retarget(v, 15 * second, 10);
+    assertTrue(between.getTargetValue().compareTo(v.getTargetValue()) > 0, "a bit easier");
+    assertEquals(19, between.getBits(), "between 19 and 20 bits");
+  } // retargetTest()
+
+  /**
+   * Chains retarget as blocks arrive, and still check the old blocks correctly.
+   */
+  @Test
+  public void chainRetargetTest() throws Exception {
+    BlockChain chain = new BlockChain(new DifficultyValidator(4));
+    chain.setRetargetPolicy(new RetargetPolicy(Duration.ofHours(1), 2, 0, 8));
+    for (int i = 0; i < 4; i++) {
+      chain.append(chain.mine(new Transaction("", "Fast", 1)));
+    } // for
+    assertEquals(new DifficultyValidator(8), chain.getValidator(), "harder after fast blocks");
+    chain.check();
+    assertTrue(chain.isCorrect(), "retargeted chain is correct");
+
+    BlockChain lambda = new BlockChain((h) -> true);
+    assertThrows(IllegalStateException.class,
+        () -> lambda.setRetargetPolicy(new RetargetPolicy(Duration.ofSeconds(1), 1, 0, 8)));
+  } // chainRetargetTest()
+
+  /**
+   * Removed blocks do not count toward the retargeting window.
+   */
+  @Test
+  public void removeRetargetTest() throws Exception {
+    BlockChain chain = new BlockChain(new DifficultyValidator(4));
+    chain.setRetargetPolicy(new RetargetPolicy(Duration.ofHours(1), 2, 0, 8));
+    chain.append(chain.mine(new Transaction("", "Fast", 1)));
+    assertTrue(chain.removeLast(), "removed");
+    chain.append(chain.mine(new Transaction("", "Fast", 1)));
+    assertEquals(new DifficultyValidator(4), chain.getValidator(), "one block in the window");
+    chain.append(chain.mine(new Transaction("", "Fast", 1)));
+    assertTrue(((DifficultyValidator) chain.getValidator()).getBits() > 4,
+        "two blocks retarget");
+    chain.check();
+  } // removeRetargetTest()
+} // class TestDifficultyValidator
@@ -0,0 +1,103 @@
+package edu.grinnell.csc207.blockchains;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.security.MessageDigest;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Some simple tests of our digest engines.
+ *
+ * @author Moise Milenge
+ * @author Tiffany Yan
+ */
+public class TestDigestEngine {
+  /**
+   * Every engine hashes prefixes of many lengths like the JDK.
+   */
+  @Test
+  public void enginesTest() throws Exception {
+    Random random = new Random(209);
+    byte[] suffix = new byte[Long.BYTES];
+    for (DigestEngine engine : new DigestEngine[] {DigestEngine.SHA_256,
+        DigestEngine.JDK_SHA_256, DigestEngine.JAVA_SHA_256, DigestEngine.SHA3_256}) {
+      MessageDigest md = MessageDigest.getInstance(engine.getAlgorithm());
+      byte[] out = new byte[engine.getDigestLength()];
+      for (int len = 0; len < 1200; len += 37) {
+        byte[] prefix = new byte[len];
+        random.nextBytes(prefix);
+        DigestEngine.Hasher hasher = engine.newHasher(prefix);
+        for (int i = 0; i < 3; i++) {
+          long nonce = random.nextLong();
+          Sha256.putLong(suffix, 0, nonce);
+          md.update(prefix);
+          md.update(suffix);
+          hasher.hash(nonce, out);
+          assertArrayEquals(md.digest(), out, engine + " after " + len + " bytes");
+        } // for
+      } // for
+    } // for
+  } // enginesTest()
+
+  /**
+   * We can find engines by name.
+   */
+  @Test
+  public void forNameTest() {
+    assertSame(DigestEngine.SHA3_256, DigestEngine.forName("sha3-256/jdk"), "SHA3 by name");
+    assertSame(DigestEngine.JAVA_SHA_256, DigestEngine.forName("SHA-256/Java"),
+        "Java SHA-256 by name");
+    assertThrows(IllegalArgumentException.class, () -> DigestEngine.forName("MD5"));
+    assertThrows(IllegalArgumentException.class, () -> new JdkDigestEngine("No-Such-Hash"));
+  } // forNameTest()
+
+  /**
+   * The default engine hands headers to the JDK, and only the Java engine uses the
+   * SHA-256 written out for headers.
+   */
+  @Test
+  public void headerHasherTest() {
+    byte[] prefix = new BlockTemplate(5, new Transaction("Source", "Target", 17),
+        new Hash(new byte[Sha256.DIGEST_LENGTH])).prefix();
+    assertFalse(DigestEngine.SHA_256.newHasher(prefix) instanceof Sha256Header,
+        "default uses the JDK");
+    assertTrue(DigestEngine.JAVA_SHA_256.newHasher(prefix) instanceof Sha256Header,
+        "Java engine uses the header SHA-256");
+  } // headerHasherTest()
+
+  /**
+   * Chains hash with their own engine and reject blocks hashed with other algorithms,
+   * but accept blocks from other engines for the same algorithm.
+   */
+  @Test
+  public void chainTest() throws Exception {
+    BlockChain sha3 = new BlockChain(TestMiner.TWO_ZEROS, new Miner(2),
+        DigestEngine.SHA3_256);
+    Block b = sha3.mine(new Transaction("", "Keccak", 3));
+    assertSame(DigestEngine.SHA3_256, b.getEngine(), "block records its engine");
+    assertEquals(new Block(1, b.getTransaction(), b.getPrevHash(), b.getNonce(),
+        DigestEngine.SHA3_256).getHash(), b.getHash(), "hash recomputed with SHA3");
+    assertNotEquals(new Block(1, b.getTransaction(), b.getPrevHash(), b.getNonce())
+        .getHash(), b.getHash(), "SHA-256 hashes differently");
+    sha3.append(b);
+    sha3.check();
+
+    BlockChain sha2 = new BlockChain(TestMiner.TWO_ZEROS);
+    Block other = new Miner(1).mine(1, new Transaction("", "Keccak", 3), sha2.getHash(),
+        TestMiner.TWO_ZEROS, DigestEngine.SHA3_256);
+    assertThrows(IllegalArgumentException.class, () -> sha2.append(other));
+    sha2.append(new Miner(1).mine(1, new Transaction("", "Plain", 3), sha2.getHash(),
+        TestMiner.TWO_ZEROS, DigestEngine.JAVA_SHA_256));
+    sha2.check();
+    assertEquals(2, sha2.getSize(), "block from another SHA-256 engine appended");
+  } // chainTest()
+} // class TestDigestEngine
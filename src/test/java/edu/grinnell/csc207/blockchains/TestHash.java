@@ -5,7 +5,14 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
 import org.junit.jupiter.api.Test;
 
 
@@ -103,8 +110,150 @@ public class TestHash {
     assertEquals(3, h.get(0), "byte 0 is 3");
     bytes[0] = 15;
     assertEquals(3, h.get(0), "byte 0 is 3");
-    assertFalse(h.equals(new Hash(bytes)), 
+    assertFalse(h.equals(new Hash(bytes)),
        "a hash does not equal a hash made from its modified bytes");
   } // testReturnBytes
-  
+
+  /**
+   * Hashes as long as a digest behave like any other hash.
+   */
+  @Test
+  public void testDigestLength() {
+    byte[] bytes = new byte[32];
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = (byte) (i * 37 - 100);
+    } // for
+    Hash h = new Hash(bytes);
+    assertEquals(32, h.length(), "length");
+    for (int i = 0; i < bytes.length; i++) {
+      assertEquals(bytes[i], h.get(i), "byte " + i);
+    } // for
+    assertArrayEquals(bytes, h.getBytes(), "bytes");
+    assertEquals(h, new Hash(bytes), "equal");
+    assertEquals(h.hashCode(), new Hash(bytes).hashCode(), "equal hash codes");
+    assertEquals(h, new Hash(Arrays.copyOf(bytes, 40), 0, 32), "from part of an array");
+    for (int i = 0; i < bytes.length; i++) {
+      byte[] other = bytes.clone();
+      other[i]++;
+      assertNotEquals(h, new Hash(other), "differs in byte " + i);
+    } // for
+    assertNotEquals(h, new Hash(Arrays.copyOf(bytes, 31)), "shorter");
+    assertNotEquals(new Hash(Arrays.copyOf(bytes, 31)), h, "longer");
+    assertThrows(IndexOutOfBoundsException.class, () -> h.get(32), "past the end");
+    assertTrue(h.satisfies((d) -> d.length() == 32), "validator sees every byte");
+  } // testDigestLength()
+
+  /**
+   * Hashes work as keys, whatever their length.
+   */
+  @Test
+  public void testKeys() {
+    Set<Hash> keys = new HashSet<>();
+    for (int i = 0; i < 1000; i++) {
+      byte[] bytes = new byte[32];
+      bytes[31] = (byte) i;
+      bytes[30] = (byte) (i >> 8);
+      keys.add(new Hash(bytes));
+    } // for
+    keys.add(new Hash(new byte[] {}));
+    keys.add(new Hash(new byte[] {1, 2, 3}));
+    assertEquals(1002, keys.size(), "all different");
+    assertTrue(keys.contains(new Hash(new byte[32])), "zero");
+    assertTrue(keys.contains(new Hash(new byte[] {})), "empty");
+    assertTrue(keys.contains(new Hash(new byte[] {1, 2, 3})), "short");
+    assertFalse(keys.contains(new Hash(new byte[33])), "not there");
+  } // testKeys()
+
+  /**
+   * Hex strings read back as the hashes they came from.
+   */
+  @Test
+  public void testFromHex() {
+    byte[] bytes = new byte[32];
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = (byte) (i * 53 + 7);
+    } // for
+    Hash h = new Hash(bytes);
+    String hex = h.toString();
+    assertEquals(64, hex.length(), "two digits a byte");
+    assertTrue(hex == h.toString(), "string is kept");
+    assertEquals(h, Hash.fromHex(hex), "round trip");
+    assertEquals(h, Hash.fromHex(hex.toLowerCase()), "lowercase");
+    assertEquals(new Hash(new byte[] {3, 1, 4, 1, 5}), Hash.fromHex("0301040105"), "short");
+    assertEquals(new Hash(new byte[] {(byte) 255, 10}), Hash.fromHex(new StringBuilder("fF0a")),
+        "mixed case");
+    assertEquals(new Hash(new byte[] {}), Hash.fromHex(""), "empty");
+    assertEquals("", new Hash(new byte[] {}).toString(), "empty string");
+    assertThrows(IllegalArgumentException.class, () -> Hash.fromHex("ABC"), "odd");
+    assertThrows(IllegalArgumentException.class, () -> Hash.fromHex("0G"), "not hex");
+    assertThrows(IllegalArgumentException.class, () -> Hash.fromHex("0é"), "not ascii");
+  } // testFromHex()
+
+  /**
+   * Writing a hash somewhere gives the same bytes as getBytes().
+   */
+  @Test
+  public void testWriteTo() throws Exception {
+    for (int len : new int[] {0, 5, 32}) {
+      byte[] bytes = new byte[len];
+      for (int i = 0; i < len; i++) {
+        bytes[i] = (byte) (200 - i * 11);
+      } // for
+      Hash h = new Hash(bytes);
+
+      byte[] out = new byte[len + 3];
+      h.writeTo(out, 2);
+      assertArrayEquals(bytes, Arrays.copyOfRange(out, 2, len + 2), "array " + len);
+
+      MessageDigest md = MessageDigest.getInstance("SHA-256");
+      h.writeTo(md);
+      assertArrayEquals(MessageDigest.getInstance("SHA-256").digest(bytes), md.digest(),
+          "digest " + len);
+
+      for (ByteOrder order : new ByteOrder[] {ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN}) {
+        ByteBuffer buf = ByteBuffer.allocate(len + 1).order(order);
+        buf.put((byte) 1);
+        h.writeTo(buf);
+        assertEquals(len + 1, buf.position(), "position " + len);
+        assertArrayEquals(bytes, Arrays.copyOfRange(buf.array(), 1, len + 1),
+            "buffer " + len + " " + order);
+      } // for
+
+      ByteBuffer view = h.asReadOnlyBuffer();
+      assertTrue(view.isReadOnly(), "read only");
+      byte[] read = new byte[view.remaining()];
+      view.get(read);
+      assertArrayEquals(bytes, read, "view " + len);
+    } // for
+    assertThrows(IndexOutOfBoundsException.class,
+        () -> new Hash(new byte[32]).writeTo(new byte[40], 9), "does not fit");
+  } // testWriteTo()
+
+  /**
+   * Hashes compare as unsigned bytes, and mismatch finds the first difference.
+   */
+  @Test
+  public void testCompare() {
+    byte[] bytes = new byte[32];
+    Hash zero = new Hash(bytes);
+    assertEquals(-1, zero.mismatch(new Hash(bytes)), "equal");
+    assertEquals(0, zero.compareTo(new Hash(bytes)), "compare equal");
+    for (int i = 0; i < 32; i++) {
+      byte[] other = bytes.clone();
+      other[i] = (byte) 0x80;
+      Hash h = new Hash(other);
+      assertEquals(i, zero.mismatch(h), "mismatch at " + i);
+      assertEquals(i, h.mismatch(zero), "mismatch back at " + i);
+      assertTrue(zero.compareTo(h) < 0, "unsigned " + i);
+      assertTrue(h.compareTo(zero) > 0, "unsigned back " + i);
+    } // for
+    Hash shorter = new Hash(new byte[31]);
+    assertEquals(31, zero.mismatch(shorter), "prefix");
+    assertTrue(shorter.compareTo(zero) < 0, "shorter first");
+    assertTrue(zero.compareTo(shorter) > 0, "longer last");
+    assertTrue(new Hash(new byte[] {1, (byte) 0xFF}).compareTo(new Hash(new byte[] {2})) < 0,
+        "first byte decides");
+    assertEquals(0, new Hash(new byte[] {}).compareTo(new Hash(new byte[] {})), "empty");
+  } // testCompare()
+
 } // class TestHash
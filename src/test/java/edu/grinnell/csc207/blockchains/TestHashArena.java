@@ -0,0 +1,84 @@
+package edu.grinnell.csc207.blockchains;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Some simple tests of our HashArena class.
+ *
+ * @author Moise Milenge
+ * @author Tiffany Yan
+ */
+public class TestHashArena {
+  /**
+   * Build a hash of some length from a number.
+   *
+   * @param length The length of the hash.
+   * @param i The number.
+   * @return the hash.
+   */
+  static Hash hash(int length, int i) {
+    byte[] bytes = new byte[length];
+    for (int j = 0; j < length; j++) {
+      bytes[j] = (byte) (i * 31 + j * 7);
+    } // for
+    bytes[0] = (byte) i;
+    bytes[1] = (byte) (i >> 8);
+    bytes[2] = (byte) (i >> 16);
+    return new Hash(bytes);
+  } // hash(int, int)
+
+  /**
+   * Hashes come back as they went in, across buffers and for any length.
+   */
+  @Test
+  public void roundTripTest() {
+    for (int length : new int[] {32, 20}) {
+      HashArena arena = new HashArena(length);
+      int count = HashArena.CHUNK_HASHES + 5;
+      for (int i = 0; i < count; i++) {
+        assertEquals(i, arena.add(hash(length, i)), "index");
+      } // for
+      assertEquals(count, arena.size(), "size");
+      assertEquals(2L * HashArena.CHUNK_HASHES * length, arena.getReserved(), "two buffers");
+      for (int i = 0; i < count; i++) {
+        assertEquals(hash(length, i), arena.get(i), "hash " + i);
+      } // for
+    } // for
+  } // roundTripTest()
+
+  /**
+   * Truncating forgets hashes, and their places are reused.
+   */
+  @Test
+  public void truncateTest() {
+    HashArena arena = new HashArena(32);
+    for (int i = 0; i < 10; i++) {
+      arena.add(hash(32, i));
+    } // for
+    arena.truncate(7);
+    assertEquals(7, arena.size(), "size");
+    assertThrows(IndexOutOfBoundsException.class, () -> arena.get(7), "forgotten");
+    assertEquals(7, arena.add(hash(32, 70)), "reused");
+    assertEquals(hash(32, 70), arena.get(7), "replaced");
+    assertEquals(hash(32, 6), arena.get(6), "kept");
+    assertThrows(IllegalArgumentException.class, () -> arena.truncate(9), "too many");
+  } // truncateTest()
+
+  /**
+   * Bad arguments are rejected.
+   */
+  @Test
+  public void argumentsTest() {
+    HashArena arena = new HashArena(32);
+    assertThrows(IllegalArgumentException.class, () -> new HashArena(0), "no bytes");
+    assertThrows(IllegalArgumentException.class, () -> arena.add(new Hash(new byte[3])),
+        "wrong length");
+    assertThrows(IndexOutOfBoundsException.class, () -> arena.get(0), "empty");
+    assertThrows(IndexOutOfBoundsException.class, () -> arena.get(-1), "negative");
+    assertEquals(0, arena.getReserved(), "nothing reserved");
+  } // argumentsTest()
+} // class TestHashArena
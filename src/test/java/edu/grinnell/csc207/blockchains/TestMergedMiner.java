@@ -0,0 +1,111 @@
+package edu.grinnell.csc207.blockchains;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Some simple tests of our MergedMiner class.
+ *
+ * @author Moise Milenge
+ * @author Tiffany Yan
+ */
+public class TestMergedMiner {
+  /**
+   * Chains with the same validator share one search, and accept their blocks.
+   */
+  @Test
+  public void shareTest() throws Exception {
+    MergedMiner merged = new MergedMiner(new Miner(2));
+    List<BlockChain> chains = new ArrayList<>();
+    List<Transaction> ts = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      chains.add(new BlockChain(new DifficultyValidator(8)));
+      ts.add(new Transaction("", "User" + i, 10 + i));
+    } // for
+    List<Block> blocks = merged.mine(chains, ts);
+    assertEquals(1, merged.getSearches(), "one search");
+    for (int i = 0; i < 3; i++) {
+      Block blk = blocks.get(i);
+      assertNotNull(blk.getMergeProof(), "merged");
+      assertEquals(i, blk.getMergeProof().getIndex(), "index");
+      assertEquals(ts.get(i), blk.getTransaction(), "transaction");
+      chains.get(i).append(blk);
+      chains.get(i).check();
+      assertEquals(10 + i, chains.get(i).balance("User" + i), "balance");
+    } // for
+    assertEquals(blocks.get(0).getNonce(), blocks.get(2).getNonce(), "same nonce");
+  } // shareTest()
+
+  /**
+   * A harder chain keeps searching from where the easier one stopped.
+   */
+  @Test
+  public void difficultyTest() throws Exception {
+    MergedMiner merged = new MergedMiner(new Miner(1));
+    BlockChain easy = new BlockChain(new DifficultyValidator(4));
+    BlockChain hard = new BlockChain(new DifficultyValidator(12));
+    List<Block> blocks = merged.mine(List.of(easy, hard),
+        List.of(new Transaction("", "Alpha", 5), new Transaction("", "Beta", 7)));
+    assertTrue(blocks.get(0).getNonce() <= blocks.get(1).getNonce(), "easy first");
+    assertTrue(merged.getSearches() <= 2, "at most one search per chain");
+    easy.append(blocks.get(0));
+    hard.append(blocks.get(1));
+    easy.check();
+    hard.check();
+  } // difficultyTest()
+
+  /**
+   * A chain keeps working after merged blocks, and the next round builds on them.
+   */
+  @Test
+  public void roundsTest() throws Exception {
+    MergedMiner merged = new MergedMiner(new Miner(2));
+    BlockChain a = new BlockChain(TestMiner.TWO_ZEROS);
+    BlockChain b = new BlockChain(new DifficultyValidator(8));
+    for (int round = 0; round < 3; round++) {
+      List<Block> blocks = merged.mine(List.of(a, b),
+          List.of(new Transaction("", "Alpha", 20), new Transaction("", "Beta", 20)));
+      a.append(blocks.get(0));
+      b.append(blocks.get(1));
+    } // for
+    a.append(a.mine(new Transaction("Alpha", "Gamma", 5)));
+    assertNull(a.blocks().next().getMergeProof(), "genesis is not merged");
+    a.check();
+    b.check();
+    assertEquals(4, b.getSize(), "three merged blocks");
+  } // roundsTest()
+
+  /**
+   * A proof that does not commit to the block is rejected, and so are bad arguments.
+   */
+  @Test
+  public void rejectTest() {
+    MergedMiner merged = new MergedMiner(new Miner(1));
+    BlockChain a = new BlockChain(new DifficultyValidator(4));
+    Transaction t = new Transaction("", "Alpha", 5);
+    Block blk = merged.mine(List.of(a), List.of(t)).get(0);
+    MergeProof proof = blk.getMergeProof();
+    assertThrows(IllegalArgumentException.class,
+        () -> new Block(blk.getNum(), new Transaction("", "Alpha", 6), blk.getPrevHash(),
+            blk.getNonce(), blk.getEngine(), proof), "other transaction");
+    Block same = new Block(blk.getNum(), t, blk.getPrevHash(), blk.getNonce(),
+        blk.getEngine(), proof);
+    assertEquals(blk.getHash(), same.getHash(), "rebuilt");
+    assertThrows(IllegalArgumentException.class, () -> merged.mine(List.of(a), List.of()),
+        "sizes differ");
+    assertThrows(IllegalArgumentException.class,
+        () -> merged.mine(List.of(a), List.of(new Transaction("Nobody", "Alpha", 1))),
+        "insufficient balance");
+    assertThrows(IllegalArgumentException.class,
+        () -> merged.mine(List.of(a, new BlockChain(TestMiner.TWO_ZEROS, new Miner(1),
+            new JdkDigestEngine("SHA-512"))), List.of(t, t)), "different algorithms");
+  } // rejectTest()
+} // class TestMergedMiner
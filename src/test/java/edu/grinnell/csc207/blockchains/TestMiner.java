@@ -0,0 +1,179 @@
+package edu.grinnell.csc207.blockchains;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Some simple tests of our Miner class.
+ *
+ * @author Moise Milenge
+ * @author Tiffany Yan
+ */
+public class TestMiner {
+  /**
+   * A validator that requires the first two bytes to be zero.
+   */
+  static final HashValidator TWO_ZEROS =
+      (h) -> (h.length() > 1) && (h.get(0) == 0) && (h.get(1) == 0);
+
+  /**
+   * A single worker finds the same nonce as the mining constructor.
+   */
+  @Test
+  public void singleWorkerTest() {
+    Transaction t = new Transaction("Here", "There", 12);
+    Hash ph = new Hash(new byte[] {3, 4, 5});
+    Block expected = new Block(4, t, ph, TWO_ZEROS);
+    Block b = new Miner(1).mine(4, t, ph, TWO_ZEROS);
+
+    assertEquals(expected.getNonce(), b.getNonce(), "nonce from one worker");
+    assertEquals(expected.getHash(), b.getHash(), "hash from one worker");
+  } // singleWorkerTest()
+
+  /**
+   * Several workers find a valid nonce, and the block hashes the same way as a block
+   * built from that nonce.
+   */
+  @Test
+  public void severalWorkersTest() {
+    Transaction t = new Transaction("", "Someone", 555);
+    Hash ph = new Hash(new byte[] {5, 5, 5, 5, 5});
+    Block b = new Miner(4).mine(7, t, ph, TWO_ZEROS);
+
+    assertEquals(7, b.getNum(), "number of mined block");
+    assertEquals(t, b.getTransaction(), "transaction in mined block");
+    assertEquals(ph, b.getPrevHash(), "previous hash of mined block");
+    assertTrue(TWO_ZEROS.isValid(b.getHash()), "mined hash is valid");
+    assertEquals(new Block(7, t, ph, b.getNonce()).getHash(), b.getHash(),
+        "mined hash matches recomputed hash");
+  } // severalWorkersTest()
+
+  /**
+   * A chain accepts blocks from a parallel miner.
+   */
+  @Test
+  public void chainTest() throws Exception {
+    BlockChain chain = new BlockChain(TWO_ZEROS, new Miner(3));
+    chain.append(chain.mine(new Transaction("", "Alpha", 10)));
+    chain.append(chain.mine(new Transaction("Alpha", "Beta", 4)));
+    chain.check();
+    assertEquals(3, chain.getSize(), "size of parallel-mined chain");
+    assertEquals(6, chain.balance("Alpha"), "balance after parallel mining");
+  } // chainTest()
+
+  /**
+   * Trying nonces allocates nothing, for short and long transactions alike.
+   */
+  @Test
+  public void allocationFreeTest() {
+    com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long id = Thread.currentThread().getId();
+    Miner miner = new Miner(1);
+    int attempts = 200_000;
+    int[] count = new int[1];
+    HashValidator countdown = new HashValidator() {
+      @Override
+      public boolean isValid(Hash h) {
+        return (++count[0] % attempts == 0) && (h.length() > 0);
+      } // isValid(Hash)
+
+      @Override
+      public boolean isValid(byte[] digest, int offset, int length) {
+        return (++count[0] % attempts == 0) && (length > 0);
+      } // isValid(byte[], int, int)
+    };
+
+    for (String name : new String[] {"Someone", "Someone ".repeat(100)}) {
+      BlockTemplate template = new BlockTemplate(3, new Transaction("", name, 5),
+          new Hash(new byte[32]));
+      // Warm up, so that class loading and the like do not count.
+      miner.search(template, countdown);
+      long before = threads.getThreadAllocatedBytes(id);
+      miner.search(template, countdown);
+      long allocated = threads.getThreadAllocatedBytes(id) - before;
+      assertTrue(allocated < attempts / 10,
+          "allocated " + allocated + " bytes for " + attempts + " attempts");
+    } // for
+  } // allocationFreeTest()
+
+  /**
+   * Miners count the hashes they compute and tell their listeners.
+   */
+  @Test
+  public void statsTest() {
+    Miner miner = new Miner(1);
+    List<MiningReport> reports = new ArrayList<>();
+    miner.addListener(reports::add);
+    Block b = miner.mine(2, new Transaction("", "Counted", 3), new Hash(new byte[] {1}),
+        TWO_ZEROS);
+
+    assertEquals(1, reports.size(), "one report");
+    MiningReport report = reports.get(0);
+    assertTrue(report.isFound(), "report found a nonce");
+    assertEquals(b.getNonce(), report.getNonce(), "nonce in report");
+    assertEquals(b.getNonce(), report.getAttempts(), "one worker tries every nonce");
+    assertEquals(1, miner.getStats().getBlocks(), "one block in stats");
+    assertEquals(b.getNonce(), miner.getStats().getAttempts(), "attempts in stats");
+    assertEquals(1, miner.getStats().getAttemptHistogram()[MiningStats.bucket(b.getNonce())],
+        "histogram counts the block");
+    assertTrue(miner.getStats().getHashesPerSecond() > 0, "positive hash rate");
+
+    assertThrows(CancellationException.class,
+        () -> miner.search(new BlockTemplate(3, new Transaction("", "Never", 1), null),
+            (h) -> false, () -> true));
+    assertEquals(2, reports.size(), "cancelled searches are reported");
+    assertEquals(1, miner.getStats().getCancelled(), "one cancelled search");
+    assertEquals(1, miner.getStats().getBlocks(), "still one block");
+  } // statsTest()
+
+  /**
+   * Miners made not to record statistics leave them empty but still tell their
+   * listeners.
+   */
+  @Test
+  public void unrecordedTest() {
+    Miner miner = new Miner(1, false, false);
+    List<MiningReport> reports = new ArrayList<>();
+    miner.addListener(reports::add);
+    miner.mine(2, new Transaction("", "Uncounted", 3), new Hash(new byte[] {1}), TWO_ZEROS);
+    assertEquals(1, reports.size(), "one report");
+    assertEquals(0, miner.getStats().getBlocks(), "no blocks in stats");
+    assertEquals(0, miner.getStats().getAttempts(), "no attempts in stats");
+  } // unrecordedTest()
+
+  /**
+   * Validators that only check Hash objects still work through the raw-digest bridge.
+   */
+  @Test
+  public void rawBridgeTest() {
+    Hash h = new Hash(new byte[] {9, 0, 0, 7, 9}, 1, 3);
+    assertEquals(new Hash(new byte[] {0, 0, 7}), h, "hash from part of an array");
+    assertTrue(TWO_ZEROS.isValid(new byte[] {9, 0, 0, 7, 9}, 1, 3), "bridge accepts");
+    assertFalse(TWO_ZEROS.isValid(new byte[] {9, 0, 0, 7, 9}, 0, 3), "bridge rejects");
+  } // rawBridgeTest()
+
+  /**
+   * Failures in the validator reach the caller.
+   */
+  @Test
+  public void failingValidatorTest() {
+    Miner miner = new Miner(2);
+    Transaction t = new Transaction("", "Someone", 1);
+    assertThrows(UnsupportedOperationException.class,
+        () -> miner.mine(1, t, new Hash(new byte[] {}), (h) -> {
+          throw new UnsupportedOperationException();
+        }));
+    assertThrows(IllegalArgumentException.class, () -> new Miner(0));
+  } // failingValidatorTest()
+} // class TestMiner
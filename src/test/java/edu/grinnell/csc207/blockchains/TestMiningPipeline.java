@@ -0,0 +1,109 @@
+package edu.grinnell.csc207.blockchains;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Some simple tests of our MiningPipeline class.
+ *
+ * @author Moise Milenge
+ * @author Tiffany Yan
+ */
+public class TestMiningPipeline {
+  /**
+   * A stream of transactions ends up on the chain in order, with later blocks mined
+   * speculatively, and transactions that depend on earlier ones in the stream are
+   * accepted.
+   */
+  @Test
+  public void streamTest() throws Exception {
+    BlockChain chain = new BlockChain(TestMiner.TWO_ZEROS, new Miner(2));
+    List<CompletableFuture<Block>> blocks = new ArrayList<>();
+    try (MiningPipeline pipeline = new MiningPipeline(chain)) {
+      blocks.add(pipeline.submit(new Transaction("", "Alpha", 20)));
+      for (int i = 0; i < 5; i++) {
+        blocks.add(pipeline.submit(new Transaction("Alpha", "Beta", 2)));
+      } // for
+      for (int i = 0; i < blocks.size(); i++) {
+        assertEquals(i + 1, blocks.get(i).get(10, TimeUnit.SECONDS).getNum(),
+            "block " + i + " in order");
+      } // for
+      assertEquals(6, pipeline.getAppended(), "six blocks appended");
+      assertTrue(pipeline.getSpeculated() > 0, "some blocks mined speculatively");
+    } // try
+    chain.check();
+    assertEquals(7, chain.getSize(), "size after the stream");
+    assertEquals(10, chain.balance("Alpha"), "Alpha spent half");
+    assertEquals(10, chain.balance("Beta"), "Beta got half");
+  } // streamTest()
+
+  /**
+   * Invalid transactions fail without stopping the stream.
+   */
+  @Test
+  public void invalidTest() throws Exception {
+    BlockChain chain = new BlockChain(TestMiner.TWO_ZEROS);
+    try (MiningPipeline pipeline = new MiningPipeline(chain)) {
+      CompletableFuture<Block> first = pipeline.submit(new Transaction("", "Alpha", 3));
+      CompletableFuture<Block> broke = pipeline.submit(new Transaction("Alpha", "Beta", 4));
+      CompletableFuture<Block> last = pipeline.submit(new Transaction("Alpha", "Beta", 3));
+      ExecutionException e = assertThrows(ExecutionException.class,
+          () -> broke.get(10, TimeUnit.SECONDS));
+      assertTrue(e.getCause() instanceof IllegalArgumentException, "balance too low");
+      assertEquals(2, last.get(10, TimeUnit.SECONDS).getNum(), "stream went on");
+      assertEquals(1, first.get().getNum(), "first block");
+    } // try
+    chain.check();
+    assertEquals(3, chain.balance("Beta"), "Beta's balance");
+  } // invalidTest()
+
+  /**
+   * When appending a block raises the difficulty, the block mined on top of it is mined
+   * again.
+   */
+  @Test
+  public void restartTest() throws Exception {
+    BlockChain chain = new BlockChain(new DifficultyValidator(1));
+    chain.setRetargetPolicy(new RetargetPolicy(Duration.ofHours(1), 1, 1, 9));
+    List<CompletableFuture<Block>> blocks = new ArrayList<>();
+    try (MiningPipeline pipeline = new MiningPipeline(chain)) {
+      for (int i = 0; i < 4; i++) {
+        blocks.add(pipeline.submit(new Transaction("", "Miner", 1)));
+      } // for
+      for (CompletableFuture<Block> block : blocks) {
+        block.get(10, TimeUnit.SECONDS);
+      } // for
+      assertTrue(pipeline.getRestarts() > 0, "restarted after the difficulty changed");
+    } // try
+    chain.check();
+    assertEquals(4, chain.balance("Miner"), "all blocks appended");
+  } // restartTest()
+
+  /**
+   * Closing the pipeline fails the transactions that are not on the chain yet.
+   */
+  @Test
+  public void closeTest() {
+    AtomicBoolean impossible = new AtomicBoolean(false);
+    BlockChain chain = new BlockChain(TestBlockChain.switchable(impossible));
+    impossible.set(true);
+    MiningPipeline pipeline = new MiningPipeline(chain);
+    CompletableFuture<Block> slow = pipeline.submit(new Transaction("", "Never", 1));
+    pipeline.close();
+    assertTrue(slow.isCompletedExceptionally(), "unfinished transaction failed");
+    assertThrows(IllegalStateException.class,
+        () -> pipeline.submit(new Transaction("", "Late", 1)));
+  } // closeTest()
+} // class TestMiningPipeline
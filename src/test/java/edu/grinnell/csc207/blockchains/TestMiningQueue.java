@@ -0,0 +1,76 @@
+package edu.grinnell.csc207.blockchains;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Some simple tests of our MiningQueue class.
+ *
+ * @author Moise Milenge
+ * @author Tiffany Yan
+ */
+public class TestMiningQueue {
+  /**
+   * A batch of transactions ends up on the chain in order, and the queue counts them.
+   */
+  @Test
+  public void batchTest() throws Exception {
+    BlockChain chain = new BlockChain(TestMiner.TWO_ZEROS, new Miner(2));
+    List<Transaction> batch = new ArrayList<>();
+    batch.add(new Transaction("", "Alpha", 40));
+    for (int i = 0; i < 10; i++) {
+      batch.add(new Transaction("Alpha", "Beta", 3));
+    } // for
+    try (MiningQueue queue = new MiningQueue(chain)) {
+      List<CompletableFuture<Block>> blocks = queue.submitAll(batch);
+      assertEquals(11, queue.getAccepted(), "all accepted");
+      for (int i = 0; i < blocks.size(); i++) {
+        assertEquals(i + 1, blocks.get(i).get(10, TimeUnit.SECONDS).getNum(),
+            "block " + i + " in order");
+      } // for
+      assertEquals(11, queue.getAppended(), "all appended");
+      assertEquals(0, queue.getDepth(), "nothing left");
+      assertTrue(queue.getBlocksPerSecond() > 0, "throughput");
+    } // try
+    chain.check();
+    assertEquals(10, chain.balance("Alpha"), "Alpha spent most");
+    assertEquals(30, chain.balance("Beta"), "Beta got the rest");
+  } // batchTest()
+
+  /**
+   * Transactions are checked against the balances the chain will have, not the ones it
+   * has now.
+   */
+  @Test
+  public void projectedTest() throws Exception {
+    BlockChain chain = new BlockChain(TestMiner.TWO_ZEROS);
+    chain.append(chain.mine(new Transaction("", "Alpha", 5)));
+    try (MiningQueue queue = new MiningQueue(chain)) {
+      assertEquals(5, queue.balance("Alpha"), "balance from the chain");
+      queue.submit(new Transaction("", "Alpha", 5));
+      CompletableFuture<Block> spend = queue.submit(new Transaction("Alpha", "Beta", 8));
+      assertThrows(IllegalArgumentException.class,
+          () -> queue.submit(new Transaction("Alpha", "Beta", 3)), "only 2 left");
+      List<CompletableFuture<Block>> rest =
+          queue.submitAll(List.of(new Transaction("Beta", "Gamma", 9),
+              new Transaction("Beta", "Gamma", 6)));
+      ExecutionException e = assertThrows(ExecutionException.class, () -> rest.get(0).get());
+      assertTrue(e.getCause() instanceof IllegalArgumentException, "turned away");
+      rest.get(1).get(10, TimeUnit.SECONDS);
+      assertEquals(3, spend.get().getNum(), "spent after the deposit");
+      assertEquals(3, queue.getAccepted(), "three accepted");
+    } // try
+    assertEquals(2, chain.balance("Alpha"), "Alpha's balance");
+    assertEquals(6, chain.balance("Gamma"), "Gamma's balance");
+  } // projectedTest()
+} // class TestMiningQueue
@@ -0,0 +1,159 @@
+package edu.grinnell.csc207.blockchains;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Some simple tests of our MiningScheduler class.
+ *
+ * @author Moise Milenge
+ * @author Tiffany Yan
+ */
+public class TestMiningScheduler {
+  /**
+   * A search uses no more threads than the scheduler allows.
+   */
+  @Test
+  public void threadsTest() {
+    Miner miner = new Miner(4);
+    List<MiningReport> reports = new ArrayList<>();
+    miner.addListener(reports::add);
+    miner.setScheduler(new MiningScheduler(2, 1));
+    miner.mine(1, new Transaction("", "Alpha", 5), new Hash(new byte[] {1}),
+        TestMiner.TWO_ZEROS);
+    assertEquals(2, reports.get(0).getThreads(), "two threads");
+  } // threadsTest()
+
+  /**
+   * A worker that mines only part of the time rests, and finds the same nonce.
+   */
+  @Test
+  public void shareTest() {
+    Transaction t = new Transaction("Here", "There", 12);
+    Hash ph = new Hash(new byte[] {3, 4, 5});
+    Block expected = new Miner(1).mine(4, t, ph, TestMiner.TWO_ZEROS);
+    Miner miner = new Miner(1);
+    MiningScheduler scheduler = new MiningScheduler(1, 0.5, Duration.ofNanos(1));
+    miner.setScheduler(scheduler);
+    Block b = miner.mine(4, t, ph, TestMiner.TWO_ZEROS);
+    assertEquals(expected.getNonce(), b.getNonce(), "same nonce");
+    assertEquals(expected.getHash(), b.getHash(), "same hash");
+    if (b.getNonce() > Miner.STOP_CHECK_MASK + 1) {
+      assertTrue(scheduler.getRested().toNanos() > 0, "rested");
+    } // if
+  } // shareTest()
+
+  /**
+   * Workers wait while urgent work is running.
+   */
+  @Test
+  public void urgentTest() throws Exception {
+    Miner miner = new Miner(1);
+    MiningScheduler scheduler = new MiningScheduler(1, 1);
+    miner.setScheduler(scheduler);
+    AtomicLong calls = new AtomicLong();
+    HashValidator late = (h) -> calls.incrementAndGet() > 5000;
+    scheduler.beginUrgent();
+    assertTrue(scheduler.isUrgent(), "urgent");
+    CompletableFuture<Block> mined = CompletableFuture.supplyAsync(
+        () -> miner.mine(1, new Transaction("", "Alpha", 5), new Hash(new byte[] {1}), late));
+    Thread.sleep(200);
+    assertFalse(mined.isDone(), "waiting");
+    assertTrue(calls.get() <= Miner.STOP_CHECK_MASK + 1, "stopped at the first check");
+    scheduler.endUrgent();
+    assertFalse(scheduler.isUrgent(), "not urgent");
+    mined.get(10, TimeUnit.SECONDS);
+    assertTrue(scheduler.getRested().toMillis() >= 100, "rested while urgent");
+    assertThrows(IllegalStateException.class, scheduler::endUrgent, "nothing to end");
+  } // urgentTest()
+
+  /**
+   * Workers that are resting, for their share or for urgent work, give up soon after
+   * they are told to stop.
+   */
+  @Test
+  public void stopTest() throws Exception {
+    BlockTemplate template = new BlockTemplate(1, new Transaction("", "Alpha", 5),
+        new Hash(new byte[] {1}));
+    HashValidator never = (h) -> false;
+    Miner slow = new Miner(1);
+    slow.setScheduler(new MiningScheduler(1, 0.001, Duration.ofMillis(50)));
+    Miner waiting = new Miner(1);
+    MiningScheduler urgent = new MiningScheduler(1, 1);
+    waiting.setScheduler(urgent);
+    urgent.beginUrgent();
+    try {
+      for (Miner miner : new Miner[] {slow, waiting}) {
+        AtomicBoolean stop = new AtomicBoolean(false);
+        CompletableFuture<Long> mined = CompletableFuture.supplyAsync(
+            () -> miner.search(template, never, stop::get));
+        Thread.sleep(200);
+        assertFalse(mined.isDone(), "resting");
+        stop.set(true);
+        ExecutionException e = assertThrows(ExecutionException.class,
+            () -> mined.get(5, TimeUnit.SECONDS), "stopped while resting");
+        assertTrue(e.getCause() instanceof CancellationException, "cancelled");
+      } // for
+    } finally {
+      urgent.endUrgent();
+    } // try/finally
+  } // stopTest()
+
+  /**
+   * A chain shares its scheduler with its miner, and still works with one.
+   */
+  @Test
+  public void chainTest() throws Exception {
+    BlockChain chain = new BlockChain(TestMiner.TWO_ZEROS, new Miner(2));
+    MiningScheduler scheduler = new MiningScheduler(1, 0.75);
+    chain.setScheduler(scheduler);
+    assertSame(scheduler, chain.getScheduler(), "chain");
+    assertSame(scheduler, chain.getMiner().getScheduler(), "miner");
+    chain.append(chain.mine(new Transaction("", "Alpha", 10)));
+    chain.append(chain.mine(new Transaction("Alpha", "Beta", 4)));
+    assertEquals(6, chain.balance("Alpha"), "balance");
+    assertFalse(scheduler.isUrgent(), "urgent work ended");
+    assertThrows(IllegalArgumentException.class,
+        () -> chain.append(chain.blocks().next()), "bad block");
+    assertFalse(scheduler.isUrgent(), "urgent work ended after a failure");
+    chain.check();
+    chain.setScheduler(null);
+    assertEquals(null, chain.getScheduler(), "removed");
+  } // chainTest()
+
+  /**
+   * Bad arguments are rejected, and a share of the machine is split sensibly.
+   */
+  @Test
+  public void argumentsTest() {
+    assertThrows(IllegalArgumentException.class, () -> new MiningScheduler(0, 1));
+    assertThrows(IllegalArgumentException.class, () -> new MiningScheduler(1, 0));
+    assertThrows(IllegalArgumentException.class, () -> new MiningScheduler(1, 1.5));
+    assertThrows(IllegalArgumentException.class, () -> new MiningScheduler(1, Double.NaN));
+    assertThrows(IllegalArgumentException.class,
+        () -> new MiningScheduler(1, 1, Duration.ZERO));
+    assertThrows(IllegalArgumentException.class, () -> MiningScheduler.ofMachine(0));
+    assertThrows(IllegalArgumentException.class, () -> MiningScheduler.ofMachine(101));
+    int cores = Runtime.getRuntime().availableProcessors();
+    MiningScheduler all = MiningScheduler.ofMachine(100);
+    assertEquals(cores, all.getMaxThreads(), "every core");
+    assertEquals(1, all.getShare(), 1e-9, "all the time");
+    MiningScheduler some = MiningScheduler.ofMachine(50);
+    assertEquals(cores * 0.5, some.getMaxThreads() * some.getShare(), 1e-9, "half");
+  } // argumentsTest()
+} // class TestMiningScheduler
@@ -0,0 +1,81 @@
+package edu.grinnell.csc207.blockchains;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Some simple tests of our NonceCache class.
+ *
+ * @author Moise Milenge
+ * @author Tiffany Yan
+ */
+public class TestNonceCache {
+  /**
+   * Mining the same block again uses the nonce we found before, without searching.
+   */
+  @Test
+  public void repeatTest() throws Exception {
+    Miner miner = new Miner(2);
+    NonceCache cache = new NonceCache();
+    miner.setNonceCache(cache);
+    BlockChain chain = new BlockChain(TestMiner.TWO_ZEROS, miner);
+    Transaction t = new Transaction("", "Alpha", 10);
+    Block first = chain.mine(t);
+    long searches = miner.getStats().getBlocks();
+    Block second = chain.mine(t);
+    assertEquals(first.getNonce(), second.getNonce(), "same nonce");
+    assertEquals(first.getHash(), second.getHash(), "same hash");
+    assertEquals(searches, miner.getStats().getBlocks(), "no search");
+    assertEquals(1, cache.getHits(), "one hit");
+
+    chain.append(second);
+    chain.removeLast();
+    chain.append(chain.mine(t));
+    chain.check();
+    assertEquals(2, cache.getHits(), "replayed after removing");
+  } // repeatTest()
+
+  /**
+   * Different validators, numbers, or previous hashes do not share nonces.
+   */
+  @Test
+  public void keyTest() {
+    Miner miner = new Miner(1);
+    NonceCache cache = new NonceCache();
+    miner.setNonceCache(cache);
+    Transaction t = new Transaction("", "Beta", 3);
+    Hash ph = new Hash(new byte[] {1, 2, 3});
+    miner.mine(1, t, ph, new DifficultyValidator(8));
+    miner.mine(1, t, ph, new DifficultyValidator(8));
+    assertEquals(1, cache.getHits(), "equal validators share nonces");
+    miner.mine(1, t, ph, new DifficultyValidator(9));
+    miner.mine(2, t, ph, new DifficultyValidator(8));
+    miner.mine(1, t, new Hash(new byte[] {1, 2}), new DifficultyValidator(8));
+    assertEquals(1, cache.getHits(), "nothing else shared");
+    assertEquals(4, cache.size(), "four nonces");
+  } // keyTest()
+
+  /**
+   * The cache forgets the least recently used nonces once it is full.
+   */
+  @Test
+  public void evictionTest() {
+    Miner miner = new Miner(1);
+    NonceCache cache = new NonceCache(2);
+    miner.setNonceCache(cache);
+    Transaction t = new Transaction("", "Gamma", 7);
+    Hash ph = new Hash(new byte[] {4});
+    HashValidator check = new DifficultyValidator(4);
+    miner.mine(1, t, ph, check);
+    miner.mine(2, t, ph, check);
+    miner.mine(1, t, ph, check);
+    miner.mine(3, t, ph, check);
+    assertEquals(2, cache.size(), "at capacity");
+    miner.mine(1, t, ph, check);
+    assertEquals(2, cache.getHits(), "block 1 kept, being recently used");
+    miner.mine(2, t, ph, check);
+    assertEquals(2, cache.getHits(), "block 2 evicted");
+  } // evictionTest()
+} // class TestNonceCache
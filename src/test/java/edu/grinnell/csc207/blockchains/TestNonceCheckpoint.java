@@ -0,0 +1,124 @@
+package edu.grinnell.csc207.blockchains;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+
+/**
+ * Some simple tests of our NonceCheckpoint class.
+ *
+ * @author Moise Milenge
+ * @author Tiffany Yan
+ */
+public class TestNonceCheckpoint {
+  /**
+   * A cancelled search saves its progress, and a miner that reads the file later
+   * resumes from there and forgets the template once it finds a nonce.
+   */
+  @Test
+  public void resumeTest(@TempDir Path dir) {
+    Path file = dir.resolve("nonces.txt");
+    BlockTemplate template =
+        new BlockTemplate(3, new Transaction("Here", "There", 8), new Hash(new byte[] {1}));
+    HashValidator check = new DifficultyValidator(19);
+    Miner first = new Miner(1);
+    first.setCheckpoint(new NonceCheckpoint(file, Duration.ZERO));
+    AtomicInteger checks = new AtomicInteger();
+    assertThrows(CancellationException.class,
+        () -> first.search(template, check, () -> checks.incrementAndGet() > 200),
+        "search is cancelled");
+    assertTrue(Files.exists(file), "progress is saved");
+
+    NonceCheckpoint reloaded = new NonceCheckpoint(file);
+    long watermark = reloaded.resume(template, check);
+    assertTrue(watermark > Miner.CHUNK_SIZE, "several chunks were searched");
+    assertEquals(1, reloaded.size(), "one template remembered");
+
+    Miner second = new Miner(2);
+    second.setCheckpoint(reloaded);
+    long nonce = second.search(template, check);
+    assertTrue(nonce >= watermark, "search resumed at the watermark");
+    assertEquals(0, reloaded.size(), "template forgotten after success");
+    assertEquals(1, new NonceCheckpoint(file).resume(template, check), "file forgets it too");
+  } // resumeTest()
+
+  /**
+   * Templates that differ in any field are kept apart.
+   */
+  @Test
+  public void keyTest(@TempDir Path dir) {
+    NonceCheckpoint saves = new NonceCheckpoint(dir.resolve("nonces.txt"));
+    Transaction t = new Transaction("", "Alpha", 5);
+    Hash ph = new Hash(new byte[] {9, 9});
+    HashValidator check = new DifficultyValidator(12);
+    saves.save(new BlockTemplate(1, t, ph), check, 1000);
+    assertEquals(1000, saves.resume(new BlockTemplate(1, t, ph), check), "same template");
+    assertEquals(1, saves.resume(new BlockTemplate(2, t, ph), check), "other number");
+    assertEquals(1, saves.resume(new BlockTemplate(1, new Transaction("", "Beta", 5), ph),
+        check), "other transaction");
+    assertEquals(1, saves.resume(new BlockTemplate(1, t, new Hash(new byte[] {9})), check),
+        "other previous hash");
+    saves.save(new BlockTemplate(1, t, ph), check, 10);
+    assertEquals(1000, saves.resume(new BlockTemplate(1, t, ph), check),
+        "watermarks only rise");
+  } // keyTest()
+
+  /**
+   * A watermark is only used with the validator it was saved for, and only difficulty
+   * targets are kept in the file.
+   */
+  @Test
+  public void validatorTest(@TempDir Path dir) {
+    Path file = dir.resolve("nonces.txt");
+    NonceCheckpoint saves = new NonceCheckpoint(file);
+    BlockTemplate template = new BlockTemplate(1, new Transaction("", "Alpha", 5),
+        new Hash(new byte[] {9, 9}));
+    HashValidator hard = (h) -> false;
+    saves.save(template, hard, 1000);
+    saves.save(template, new DifficultyValidator(20), 2000);
+    assertEquals(1000, saves.resume(template, hard), "same validator");
+    assertEquals(1, saves.resume(template, (h) -> true), "other validator");
+    assertEquals(1, saves.resume(template, new DifficultyValidator(8)), "easier target");
+    NonceCheckpoint reloaded = new NonceCheckpoint(file);
+    assertEquals(2000, reloaded.resume(template, new DifficultyValidator(20)),
+        "same target after a restart");
+    assertEquals(1, reloaded.size(), "other validators are not in the file");
+    assertEquals(1, reloaded.resume(template, hard), "so they start over");
+    saves.clear(template, hard);
+    assertEquals(1, saves.resume(template, hard), "cleared");
+    assertEquals(2000, saves.resume(template, new DifficultyValidator(20)), "still there");
+  } // validatorTest()
+
+  /**
+   * A checkpoint that cannot write its file keeps the watermarks in memory, and
+   * searches go on.
+   */
+  @Test
+  public void writeFailureTest(@TempDir Path dir) {
+    NonceCheckpoint saves = new NonceCheckpoint(dir.resolve("missing").resolve("nonces.txt"),
+        Duration.ZERO);
+    BlockTemplate template =
+        new BlockTemplate(3, new Transaction("Here", "There", 8), new Hash(new byte[] {1}));
+    HashValidator check = new DifficultyValidator(64);
+    Miner miner = new Miner(1);
+    miner.setCheckpoint(saves);
+    AtomicInteger checks = new AtomicInteger();
+    assertThrows(CancellationException.class,
+        () -> miner.search(template, check, () -> checks.incrementAndGet() > 200),
+        "cancelled, not failed");
+    assertNotNull(saves.getWriteFailure(), "write failed");
+    assertTrue(saves.resume(template, check) > Miner.CHUNK_SIZE, "kept in memory");
+    miner.search(template, TestMiner.TWO_ZEROS);
+  } // writeFailureTest()
+} // class TestNonceCheckpoint
@@ -0,0 +1,121 @@
+package edu.grinnell.csc207.blockchains;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Some simple tests of our mining pool.
+ *
+ * @author Moise Milenge
+ * @author Tiffany Yan
+ */
+public class TestPoolCoordinator {
+  /**
+   * Workers on threads in this JVM mine blocks that the chain accepts, and report
+   * shares.
+   */
+  @Test
+  public void threadsTest() throws Exception {
+    BlockChain chain = new BlockChain(new DifficultyValidator(10));
+    try (PoolCoordinator pool = new PoolCoordinator(4, 1 << 12)) {
+      for (int i = 0; i < 2; i++) {
+        Thread worker = new Thread(new PoolWorker(pool.getPort(), "thread-" + i));
+        worker.setDaemon(true);
+        worker.start();
+      } // for
+      chain.append(pool.mine(chain, new Transaction("", "Pooled", 5)));
+      chain.append(pool.mine(chain, new Transaction("Pooled", "Other", 2)));
+      Map<String, Long> shares = pool.getShares();
+      assertTrue(shares.values().stream().mapToLong(Long::longValue).sum() >= 2,
+          "shares reported: " + shares);
+    } // try
+    chain.check();
+    assertEquals(3, chain.getSize(), "two pooled blocks");
+    assertEquals(3, chain.balance("Pooled"), "balance after pooled blocks");
+  } // threadsTest()
+
+  /**
+   * A worker in another JVM mines blocks for us over loopback, with the chain's engine.
+   */
+  @Test
+  public void processTest() throws Exception {
+    BlockChain chain = new BlockChain(new DifficultyValidator(8), new Miner(1),
+        DigestEngine.SHA3_256);
+    Process worker = null;
+    try {
+      try (PoolCoordinator pool = new PoolCoordinator(2)) {
+        worker = new ProcessBuilder(System.getProperty("java.home") + File.separator
+            + "bin" + File.separator + "java", "-cp", System.getProperty("java.class.path"),
+            PoolWorker.class.getName(), Integer.toString(pool.getPort()), "1")
+            .inheritIO().start();
+        Block b = pool.mine(chain, new Transaction("", "Remote", 9));
+        assertArrayEquals(new Block(1, b.getTransaction(), b.getPrevHash(), b.getNonce(),
+            DigestEngine.SHA3_256).getHash().getBytes(), b.getHash().getBytes(),
+            "hash from another process");
+        chain.append(b);
+      } // try
+      assertTrue(worker.waitFor(10, TimeUnit.SECONDS), "worker exits when pool closes");
+    } finally {
+      if (worker != null) {
+        worker.destroyForcibly();
+      } // if
+    } // try/finally
+    chain.check();
+  } // processTest()
+
+  /**
+   * Pools only mine for difficulty targets.
+   */
+  @Test
+  public void validatorTest() throws Exception {
+    BlockChain chain = new BlockChain((h) -> true);
+    try (PoolCoordinator pool = new PoolCoordinator(4)) {
+      assertThrows(IllegalArgumentException.class,
+          () -> pool.mine(chain, new Transaction("", "Nobody", 1)));
+    } // try
+    assertThrows(IllegalArgumentException.class, () -> new PoolCoordinator(300));
+    assertThrows(IllegalArgumentException.class, () -> new PoolWorker(1, "two words"));
+  } // validatorTest()
+
+  /**
+   * Hashes survive the trip through hex.
+   */
+  @Test
+  public void hexTest() {
+    Hash hash = new Hash(new byte[] {0, 1, (byte) 0xab, (byte) 0xff, 0x10});
+    assertEquals("0001ABFF10", PoolProtocol.hex(hash), "hex");
+    assertEquals(hash, PoolProtocol.unhex("0001ABff10"), "unhex");
+    assertEquals(new Hash(new byte[0]), PoolProtocol.unhex(PoolProtocol.hex(new Hash(
+        new byte[0]))), "empty");
+    assertThrows(IllegalArgumentException.class, () -> PoolProtocol.unhex("0g"));
+  } // hexTest()
+
+  /**
+   * Mining gives up when told to, even with no workers to find the block.
+   */
+  @Test
+  public void stopTest() throws Exception {
+    BlockChain chain = new BlockChain(new DifficultyValidator(8));
+    try (PoolCoordinator pool = new PoolCoordinator(4)) {
+      long deadline = System.nanoTime() + 100_000_000L;
+      assertThrows(CancellationException.class, () -> pool.mine(chain,
+          new Transaction("", "Nobody", 1), () -> System.nanoTime() > deadline),
+          "no workers");
+      Thread worker = new Thread(new PoolWorker(pool.getPort(), "late"));
+      worker.setDaemon(true);
+      worker.start();
+      chain.append(pool.mine(chain, new Transaction("", "Somebody", 1), () -> false));
+    } // try
+    chain.check();
+  } // stopTest()
+} // class TestPoolCoordinator
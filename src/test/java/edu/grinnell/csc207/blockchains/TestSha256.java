@@ -0,0 +1,64 @@
+package edu.grinnell.csc207.blockchains;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import java.security.MessageDigest;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Some simple tests of our Sha256 class, checked against the JDK.
+ *
+ * @author Moise Milenge
+ * @author Tiffany Yan
+ */
+public class TestSha256 {
+  /**
+   * Inputs of every length around the block boundaries hash like the JDK.
+   */
+  @Test
+  public void lengthsTest() throws Exception {
+    Random random = new Random(207);
+    MessageDigest md = MessageDigest.getInstance("SHA-256");
+    Sha256 sha = new Sha256();
+    byte[] out = new byte[Sha256.DIGEST_LENGTH];
+    for (int len = 0; len < 200; len++) {
+      byte[] input = new byte[len];
+      random.nextBytes(input);
+      sha.reset();
+      sha.update(input, 0, len);
+      sha.digest(out, 0);
+      assertArrayEquals(md.digest(input), out, "digest of " + len + " bytes");
+    } // for
+  } // lengthsTest()
+
+  /**
+   * Restoring a mark lets us hash many suffixes of the same prefix.
+   */
+  @Test
+  public void markTest() throws Exception {
+    Random random = new Random(151);
+    MessageDigest md = MessageDigest.getInstance("SHA-256");
+    byte[] out = new byte[Sha256.DIGEST_LENGTH];
+    byte[] suffix = new byte[Long.BYTES];
+    for (int len = 0; len < 150; len += 7) {
+      byte[] prefix = new byte[len];
+      random.nextBytes(prefix);
+      Sha256 sha = new Sha256();
+      sha.update(prefix, 0, len);
+      sha.mark();
+      for (int i = 0; i < 5; i++) {
+        long value = random.nextLong();
+        Sha256.putLong(suffix, 0, value);
+        sha.restore();
+        sha.updateLong(value);
+        sha.digest(out, 0);
+        md.update(prefix);
+        md.update(suffix);
+        assertArrayEquals(md.digest(), out, "digest after mark at " + len + " bytes");
+      } // for
+    } // for
+  } // markTest()
+} // class TestSha256
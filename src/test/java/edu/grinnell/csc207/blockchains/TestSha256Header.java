@@ -0,0 +1,82 @@
+package edu.grinnell.csc207.blockchains;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.security.MessageDigest;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Some simple tests of our Sha256Header class, checked against the JDK.
+ *
+ * @author Moise Milenge
+ * @author Tiffany Yan
+ */
+public class TestSha256Header {
+  /**
+   * Random blocks hash like the JDK, for random nonces and nonces at the edges.
+   */
+  @Test
+  public void blocksTest() throws Exception {
+    Random random = new Random(2024);
+    MessageDigest md = MessageDigest.getInstance("SHA-256");
+    byte[] out = new byte[Sha256.DIGEST_LENGTH];
+    byte[] suffix = new byte[Long.BYTES];
+    for (int i = 0; i < 50; i++) {
+      byte[] prev = new byte[Sha256.DIGEST_LENGTH];
+      random.nextBytes(prev);
+      Transaction t = new Transaction("S".repeat(random.nextInt(40)),
+          "T".repeat(random.nextInt(400)), random.nextInt());
+      BlockTemplate template = new BlockTemplate(random.nextInt(), t, new Hash(prev));
+      byte[] prefix = template.prefix();
+      Sha256Header hasher = new Sha256Header(prefix);
+      for (long nonce : new long[] {0, 1, -1, Long.MIN_VALUE, 0xffffffffL, 1L << 32,
+          random.nextLong(), random.nextLong()}) {
+        hasher.hash(nonce, out);
+        Sha256.putLong(suffix, 0, nonce);
+        md.update(prefix);
+        md.update(suffix);
+        assertArrayEquals(md.digest(), out, "block " + i + " with nonce " + nonce);
+      } // for
+    } // for
+  } // blocksTest()
+
+  /**
+   * Longer prefixes laid out the same way hash like the JDK too.
+   */
+  @Test
+  public void longPrefixTest() throws Exception {
+    Random random = new Random(207);
+    MessageDigest md = MessageDigest.getInstance("SHA-256");
+    byte[] out = new byte[Sha256.DIGEST_LENGTH];
+    byte[] suffix = new byte[Long.BYTES];
+    for (int len = 68; len < 1000; len += Sha256.BLOCK_LENGTH) {
+      byte[] prefix = new byte[len];
+      random.nextBytes(prefix);
+      long nonce = random.nextLong();
+      new Sha256Header(prefix).hash(nonce, out);
+      Sha256.putLong(suffix, 0, nonce);
+      md.update(prefix);
+      md.update(suffix);
+      assertArrayEquals(md.digest(), out, "digest of a " + len + "-byte prefix");
+    } // for
+  } // longPrefixTest()
+
+  /**
+   * Only prefixes that end four bytes into a block fit.
+   */
+  @Test
+  public void fitsTest() {
+    assertTrue(Sha256Header.fits(68), "a SHA-256 header");
+    assertTrue(Sha256Header.fits(132), "a header one block longer");
+    assertFalse(Sha256Header.fits(4), "too short for a midstate");
+    assertFalse(Sha256Header.fits(67), "one byte short");
+    assertFalse(Sha256Header.fits(128), "whole blocks");
+    assertThrows(IllegalArgumentException.class, () -> new Sha256Header(new byte[70]));
+  } // fitsTest()
+} // class TestSha256Header
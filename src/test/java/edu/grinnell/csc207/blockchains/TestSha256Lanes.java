@@ -0,0 +1,92 @@
+package edu.grinnell.csc207.blockchains;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Some simple tests of our Sha256Lanes class, checked against the JDK and against the
+ * scalar miner.
+ *
+ * @author Moise Milenge
+ * @author Tiffany Yan
+ */
+public class TestSha256Lanes {
+  /**
+   * Prefixes of every length around the block boundaries hash like the JDK, including
+   * nonces that carry from the low word into the high word.
+   */
+  @Test
+  public void lengthsTest() throws Exception {
+    Assumptions.assumeTrue(BlockTemplate.lanesAvailable(), "vector module not loaded");
+    Random random = new Random(208);
+    MessageDigest md = MessageDigest.getInstance("SHA-256");
+    byte[] suffix = new byte[Long.BYTES];
+    for (int len = 0; len < 200; len++) {
+      byte[] prefix = new byte[len];
+      random.nextBytes(prefix);
+      Sha256Lanes lanes = new Sha256Lanes(prefix);
+      int n = lanes.getLanes();
+      byte[] out = new byte[n * Sha256.DIGEST_LENGTH];
+      long first = (len % 2 == 0) ? random.nextLong() : 0xFFFFFFFFL - 2;
+      lanes.hash(first, out);
+      for (int l = 0; l < n; l++) {
+        Sha256.putLong(suffix, 0, first + l);
+        md.update(prefix);
+        md.update(suffix);
+        assertArrayEquals(md.digest(), Arrays.copyOfRange(out, l * Sha256.DIGEST_LENGTH,
+            (l + 1) * Sha256.DIGEST_LENGTH), "lane " + l + " of " + n + " after " + len
+            + " bytes");
+      } // for
+    } // for
+  } // lengthsTest()
+
+  /**
+   * Blocks hashed in lanes match the hashes blocks compute for themselves.
+   */
+  @Test
+  public void blockTest() {
+    Assumptions.assumeTrue(BlockTemplate.lanesAvailable(), "vector module not loaded");
+    for (String name : new String[] {"Someone", "Someone ".repeat(100)}) {
+      BlockTemplate template = new BlockTemplate(6, new Transaction("Here", name, 9),
+          new Hash(new byte[] {1, 2, 3}));
+      Sha256Lanes lanes = template.newLanes();
+      byte[] out = new byte[lanes.getLanes() * Sha256.DIGEST_LENGTH];
+      lanes.hash(1000, out);
+      for (int l = 0; l < lanes.getLanes(); l++) {
+        assertEquals(template.toBlock(1000 + l).getHash(),
+            new Hash(out, l * Sha256.DIGEST_LENGTH, Sha256.DIGEST_LENGTH),
+            "hash of nonce " + (1000 + l));
+      } // for
+    } // for
+  } // blockTest()
+
+  /**
+   * A vectorized miner finds the same nonce as a scalar one, and chains accept its
+   * blocks.
+   */
+  @Test
+  public void minerTest() throws Exception {
+    Assumptions.assumeTrue(BlockTemplate.lanesAvailable(), "vector module not loaded");
+    Miner vector = new Miner(1, true);
+    assertTrue(vector.isVectorized(), "miner uses vectors");
+    Transaction t = new Transaction("", "Vector", 17);
+    Hash ph = new Hash(new byte[] {7, 7});
+    Block b = vector.mine(3, t, ph, TestMiner.TWO_ZEROS);
+    assertEquals(new Miner(1).mine(3, t, ph, TestMiner.TWO_ZEROS).getNonce(), b.getNonce(),
+        "same nonce as the scalar miner");
+
+    BlockChain chain = new BlockChain(TestMiner.TWO_ZEROS, new Miner(2, true));
+    chain.append(chain.mine(new Transaction("", "Alpha", 10)));
+    chain.check();
+    assertEquals(10, chain.balance("Alpha"), "balance after vector mining");
+  } // minerTest()
+} // class TestSha256Lanes
@@ -0,0 +1,85 @@
+package edu.grinnell.csc207.blockchains;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Some simple tests of our WorkEstimate class.
+ *
+ * @author Moise Milenge
+ * @author Tiffany Yan
+ */
+public class TestWorkEstimate {
+  /**
+   * Difficulty validators get exact estimates.
+   */
+  @Test
+  public void exactTest() {
+    WorkEstimate estimate = WorkEstimate.of(new DifficultyValidator(24));
+    assertTrue(estimate.isExact(), "exact for a difficulty validator");
+    assertEquals(Math.pow(2, -24), estimate.getProbability(), 1e-20, "three zero bytes");
+    assertEquals(1 << 24, estimate.getExpectedAttempts(), 1e-3, "expected attempts");
+    assertEquals(Duration.ofNanos(16_777_216_000L), estimate.getEta(1e6), "eta at 1 MH/s");
+    assertNull(estimate.getEta(0), "no eta without a hash rate");
+    assertEquals(1 - Math.exp(-1), estimate.probabilityWithin(Duration.ofNanos(16_777_216_000L),
+        1e6), 1e-6, "chance within the expected time");
+    assertEquals(0.5, WorkEstimate.of(new DifficultyValidator(1)).getProbability(), 1e-15,
+        "one zero bit");
+  } // exactTest()
+
+  /**
+   * Other validators are sampled.
+   */
+  @Test
+  public void sampledTest() {
+    WorkEstimate estimate = WorkEstimate.of((h) -> (h.length() > 0) && (h.get(0) == 0));
+    assertFalse(estimate.isExact(), "sampled for a lambda");
+    assertFalse(estimate.isUpperBound(), "some hits");
+    assertEquals(WorkEstimate.DEFAULT_SAMPLES, estimate.getSamples(), "number of samples");
+    assertEquals(256, estimate.getExpectedAttempts(), 64, "about one in 256");
+  } // sampledTest()
+
+  /**
+   * Validators that accept nothing we try get an upper bound.
+   */
+  @Test
+  public void boundTest() {
+    WorkEstimate estimate = WorkEstimate.of((h) -> (h.length() > 3) && (h.get(0) == 0)
+        && (h.get(1) == 0) && (h.get(2) == 0) && (h.get(3) == 0), 32, 1000);
+    assertTrue(estimate.isUpperBound(), "no hits in 1000 samples");
+    assertEquals(0.003, estimate.getProbability(), 1e-12, "rule of three");
+    assertTrue(estimate.getExpectedAttempts() < 0x1p32, "a lower bound on the work");
+  } // boundTest()
+
+  /**
+   * Chains estimate their next block at their miner's hash rate.
+   */
+  @Test
+  public void chainTest() {
+    BlockChain chain = new BlockChain(new DifficultyValidator(8));
+    assertEquals(256, chain.estimateWork().getExpectedAttempts(), 1e-9, "work for 8 bits");
+    assertNotNull(chain.estimateTime(), "the genesis block measured the hash rate");
+  } // chainTest()
+
+  /**
+   * Chains give no time when they only have a bound on the work.
+   */
+  @Test
+  public void chainBoundTest() {
+    AtomicBoolean impossible = new AtomicBoolean(false);
+    BlockChain chain = new BlockChain(TestBlockChain.switchable(impossible));
+    assertNotNull(chain.estimateTime(), "the validator accepts some digests");
+    impossible.set(true);
+    assertTrue(chain.estimateWork().isUpperBound(), "no digest accepted");
+    assertNull(chain.estimateTime(), "no time for a bound");
+  } // chainBoundTest()
+} // class TestWorkEstimate
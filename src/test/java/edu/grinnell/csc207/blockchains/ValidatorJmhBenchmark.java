@@ -0,0 +1,104 @@
+package edu.grinnell.csc207.blockchains;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH measurements of what it costs to check one candidate digest, both through the
+ * raw-digest entry point the miners use and through a Hash. Run it with
+ * mvn -P jmh verify -Djmh.args=ValidatorJmhBenchmark.
+ *
+ * @author Moise Milenge
+ * @author Tiffany Yan
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class ValidatorJmhBenchmark {
+  /**
+   * A validator written the way the original chains were, as a lambda over Hash.
+   */
+  HashValidator lambda;
+
+  /**
+   * A validator that knows how to check raw digests.
+   */
+  HashValidator difficulty;
+
+  /**
+   * A digest that passes the first byte check but fails the second, as most do once
+   * mining gets hard.
+   */
+  byte[] digest;
+
+  /**
+   * The same digest as a Hash.
+   */
+  Hash hash;
+
+  /**
+   * Build the validators and the digest.
+   */
+  @Setup
+  public void setup() {
+    this.lambda = (h) -> (h.length() > 2) && (h.get(0) == 0) && (h.get(1) == 0)
+        && (h.get(2) == 0);
+    this.difficulty = new DifficultyValidator(24);
+    this.digest = new byte[Sha256.DIGEST_LENGTH];
+    this.digest[1] = 1;
+    this.hash = new Hash(this.digest);
+  } // setup()
+
+  /**
+   * Check the raw digest with the lambda, which wraps it in a Hash.
+   *
+   * @return false.
+   */
+  @Benchmark
+  public boolean lambdaDigest() {
+    return this.lambda.isValid(this.digest, 0, this.digest.length);
+  } // lambdaDigest()
+
+  /**
+   * Check the Hash with the lambda.
+   *
+   * @return false.
+   */
+  @Benchmark
+  public boolean lambdaHash() {
+    return this.lambda.isValid(this.hash);
+  } // lambdaHash()
+
+  /**
+   * Check the raw digest with the difficulty validator.
+   *
+   * @return false.
+   */
+  @Benchmark
+  public boolean difficultyDigest() {
+    return this.difficulty.isValid(this.digest, 0, this.digest.length);
+  } // difficultyDigest()
+
+  /**
+   * Check the Hash with the difficulty validator.
+   *
+   * @return false.
+   */
+  @Benchmark
+  public boolean difficultyHash() {
+    return this.difficulty.isValid(this.hash);
+  } // difficultyHash()
+} // class ValidatorJmhBenchmark